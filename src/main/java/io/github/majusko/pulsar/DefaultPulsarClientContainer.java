@@ -10,6 +10,7 @@ import org.apache.pulsar.client.api.AuthenticationFactory;
 import org.apache.pulsar.client.api.ClientBuilder;
 import org.apache.pulsar.client.api.PulsarClient;
 import org.apache.pulsar.client.api.PulsarClientException;
+import org.apache.pulsar.client.api.SizeUnit;
 import org.apache.pulsar.client.impl.auth.oauth2.AuthenticationFactoryOAuth2;
 
 import java.net.URL;
@@ -89,6 +90,9 @@ public class DefaultPulsarClientContainer implements PulsarClientContainer, Auto
         if (!Strings.isNullOrEmpty(pulsarProperties.getListenerName())) {
             pulsarClientBuilder.listenerName(pulsarProperties.getListenerName());
         }
+        if (pulsarProperties.getMemoryLimitBytes() != null && pulsarProperties.getMemoryLimitBytes() > 0) {
+            pulsarClientBuilder.memoryLimit(pulsarProperties.getMemoryLimitBytes(), SizeUnit.BYTES);
+        }
 
         return pulsarClientBuilder.build();
     }
@@ -1,6 +1,8 @@
 package io.github.majusko.pulsar;
 
 import io.github.majusko.pulsar.consumer.DefaultConsumerInterceptor;
+import io.github.majusko.pulsar.error.ErrorSpillSink;
+import io.github.majusko.pulsar.error.FileErrorSpillSink;
 import io.github.majusko.pulsar.producer.DefaultProducerInterceptor;
 import io.github.majusko.pulsar.properties.ConsumerProperties;
 import io.github.majusko.pulsar.properties.PulsarProperties;
@@ -8,6 +10,7 @@ import org.apache.pulsar.client.api.ConsumerInterceptor;
 import org.apache.pulsar.client.api.interceptor.ProducerInterceptor;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.context.properties.bind.BindHandler;
@@ -26,6 +29,7 @@ import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -68,6 +72,12 @@ public class PulsarAutoConfiguration implements ApplicationContextAware, Environ
         return new DefaultConsumerInterceptor();
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public ErrorSpillSink errorSpillSink(@Value("${pulsar.error-spill-dir:pulsar-error-spill}") String errorSpillDir) {
+        return new FileErrorSpillSink(Paths.get(errorSpillDir));
+    }
+
 
     @Override
     public void setApplicationContext(final ApplicationContext applicationContext) throws BeansException {
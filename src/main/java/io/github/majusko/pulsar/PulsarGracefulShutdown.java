@@ -0,0 +1,124 @@
+package io.github.majusko.pulsar;
+
+import io.github.majusko.pulsar.consumer.ConsumerAggregator;
+import io.github.majusko.pulsar.producer.ProducerCollector;
+import io.github.majusko.pulsar.reactor.FluxConsumerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the consumers and closes them together with the producers when the application context is closing,
+ * before the Pulsar clients are closed. So on rolling deploys handlers can finish their messages and acknowledgments
+ * are not lost, instead of all unacknowledged messages coming back after the ack timeout.
+ *
+ * The consumers are paused first, then the shutdown waits until the handlers finish their in-flight messages,
+ * at most `pulsar.shutdown-timeout-ms`. Afterwards the consumers are closed in parallel (flushing held back
+ * acknowledgments), followed by the producers (flushing queued messages).
+ *
+ * Runs after a web server shut down gracefully, so requests still being served can produce messages.
+ */
+@Component
+public class PulsarGracefulShutdown implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PulsarGracefulShutdown.class);
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+    private static final long DRAIN_POLL_MS = 50;
+    private static final long MIN_CLOSE_TIMEOUT_MS = 1000;
+
+    @Value("${pulsar.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private final ConsumerAggregator consumerAggregator;
+    private final FluxConsumerFactory fluxConsumerFactory;
+    private final ProducerCollector producerCollector;
+
+    private volatile boolean running;
+    private volatile long drainDurationMs = -1;
+
+    public PulsarGracefulShutdown(ConsumerAggregator consumerAggregator, FluxConsumerFactory fluxConsumerFactory,
+                                  ProducerCollector producerCollector) {
+        this.consumerAggregator = consumerAggregator;
+        this.fluxConsumerFactory = fluxConsumerFactory;
+        this.producerCollector = producerCollector;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        final long startedAt = System.nanoTime();
+        final long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+
+        consumerAggregator.pause();
+        fluxConsumerFactory.pause();
+
+        try {
+            while (getInFlight() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(DRAIN_POLL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        drainDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        final int abandoned = getInFlight();
+
+        await("consumers", CompletableFuture.allOf(consumerAggregator.close(), fluxConsumerFactory.close()), deadline);
+        await("producers", producerCollector.close(), deadline);
+
+        running = false;
+
+        if (abandoned > 0) {
+            logger.warn("Pulsar consumers drained in {} ms, {} messages were still in flight, closed in {} ms.",
+                drainDurationMs, abandoned, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } else {
+            logger.info("Pulsar consumers drained in {} ms, closed in {} ms.",
+                drainDurationMs, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * How long the last shutdown waited for in-flight messages, -1 before the shutdown.
+     */
+    public long getDrainDurationMs() {
+        return drainDurationMs;
+    }
+
+    private int getInFlight() {
+        return consumerAggregator.getInFlight() + fluxConsumerFactory.getInFlight();
+    }
+
+    private static void await(String name, CompletableFuture<Void> future, long deadline) {
+        final long timeoutMs = Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), MIN_CLOSE_TIMEOUT_MS);
+
+        try {
+            future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Failed to close Pulsar {} on shutdown.", name, e);
+        }
+    }
+}
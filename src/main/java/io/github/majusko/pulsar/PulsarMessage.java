@@ -2,6 +2,7 @@ package io.github.majusko.pulsar;
 
 import org.apache.pulsar.client.api.MessageId;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 public class PulsarMessage<T> {
@@ -15,6 +16,8 @@ public class PulsarMessage<T> {
     private String producerName;
     private long publishTime;
     private long eventTime;
+    private byte[] data;
+    private int redeliveryCount;
 
     public T getValue() {
         return value;
@@ -87,4 +90,33 @@ public class PulsarMessage<T> {
     public void setSequenceId(long sequenceId) {
         this.sequenceId = sequenceId;
     }
+
+    /**
+     * Raw payload of the message.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Read-only view of the raw payload of the message, without copying it.
+     */
+    public ByteBuffer getDataBuffer() {
+        return data == null ? null : ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
+    /**
+     * How many times the message was redelivered to the consumer, 0 for the first delivery.
+     */
+    public int getRedeliveryCount() {
+        return redeliveryCount;
+    }
+
+    public void setRedeliveryCount(int redeliveryCount) {
+        this.redeliveryCount = redeliveryCount;
+    }
 }
@@ -1,5 +1,8 @@
 package io.github.majusko.pulsar.annotation;
 
+import io.github.majusko.pulsar.constant.AckMode;
+import io.github.majusko.pulsar.constant.DeduplicationMode;
+import io.github.majusko.pulsar.constant.RejectionPolicy;
 import io.github.majusko.pulsar.constant.Serialization;
 import org.apache.pulsar.client.api.SubscriptionInitialPosition;
 import org.apache.pulsar.client.api.SubscriptionType;
@@ -12,7 +15,29 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface PulsarConsumer {
-    String topic();
+    /**
+     * Name of the topic to subscribe to. At least one of `topic`, `topics` or `topicsPattern` must be set.
+     */
+    String topic() default "";
+
+    /**
+     * (Optional) Names of more topics the consumer subscribes to along with `topic`. A single consumer then
+     * shares its receiver queue and listener across all the topics and their partitions.
+     */
+    String[] topics() default {};
+
+    /**
+     * (Optional) Regular expression of the topics the consumer subscribes to, for example `tenant-.*`.
+     * Relative patterns are resolved in the persistent topics of the tenant and `namespace`, a full pattern like
+     * `persistent://public/default/tenant-.*` is used as it is. Can't be combined with `topic` and `topics`.
+     */
+    String topicsPattern() default "";
+
+    /**
+     * (Optional) How often the topics matching `topicsPattern` are looked up, so new topics get subscribed.
+     * Pulsar default (1 minute) is used when not set.
+     */
+    int patternAutoDiscoveryPeriodSec() default -1;
 
     String cluster() default "default";
 
@@ -61,6 +86,46 @@ public @interface PulsarConsumer {
      */
     String deadLetterTopic() default "";
 
+    /**
+     * Send failed messages to a retry letter topic with `reconsumeLater` instead of redelivering them in place,
+     * so retries wait off the subscription and a transient outage doesn't fill the dead letter topic.
+     * The consumer subscribes to the retry letter topic too. Delayed delivery is supported by Shared and Key_Shared
+     * subscriptions only, other subscriptions get the retried messages right away.
+     * By default, the value is `false`
+     */
+    boolean enableRetry() default false;
+
+    /**
+     * (Optional) Delays of the retry tiers, for example `{"1s", "10s", "1m"}`. The n-th retry of a message waits
+     * the n-th delay, later retries wait the last one. Unless `maxRedeliverCount` is set, the message goes to the
+     * dead letter topic once all the tiers are used up. By default, `1s, 10s, 1m` or the value from `application.properties`.
+     */
+    String[] retryDelays() default {};
+
+    /**
+     * (Optional) Name of the retry letter topic. By default, `<topic>-<subscription>-RETRY`.
+     */
+    String retryLetterTopic() default "";
+
+    /**
+     * (Optional) Delay of the first redelivery of a negatively acknowledged message. Every following redelivery
+     * of the same message is delayed `negativeAckMultiplier` times more, up to `negativeAckMaxDelayMs`, so a burst
+     * of failing messages doesn't hammer the broker and the handler in a tight loop. The backoff is enabled once any of
+     * the three values is set here or in `application.properties`, the rest falls back to the Pulsar defaults
+     * (1s, 60s, 2). By default, messages are redelivered after the fixed negative acknowledgment delay.
+     */
+    long negativeAckMinDelayMs() default -1;
+
+    /**
+     * (Optional) Maximum delay of a redelivery of a negatively acknowledged message.
+     */
+    long negativeAckMaxDelayMs() default -1;
+
+    /**
+     * (Optional) Factor the redelivery delay grows by with every redelivery of the same message.
+     */
+    double negativeAckMultiplier() default -1;
+
     /**
      * If value is set to true, the consumer will autostart on application startup automatically.
      * When the value is set to false, consumer will not subscribe to the topic.
@@ -79,4 +144,220 @@ public @interface PulsarConsumer {
      * By default, the subscription will be created at the end of the topic (Latest).
      */
     SubscriptionInitialPosition initialPosition() default SubscriptionInitialPosition.Latest;
+
+    /**
+     * Receive messages in batches instead of one by one. The handler method must accept `List<T>`
+     * or `List<PulsarMessage<T>>` and the whole batch is acknowledged with a single call once the handler returns.
+     * When the handler throws, every message of the batch is negatively acknowledged.
+     * By default, the value is `false`
+     */
+    boolean batch() default false;
+
+    /**
+     * (Optional) Maximum number of messages in a single batch. Pulsar default is used when not set.
+     */
+    int batchMaxMessages() default -1;
+
+    /**
+     * (Optional) Maximum size of a single batch in bytes. Pulsar default (10MB) is used when not set.
+     */
+    int batchMaxBytes() default -1;
+
+    /**
+     * (Optional) Maximum time to wait for a batch to fill up before it is handed over to the handler.
+     * Pulsar default (100ms) is used when not set.
+     */
+    int batchTimeoutMs() default -1;
+
+    /**
+     * (Optional) Maximum number of messages handed over to the handler and not acknowledged yet.
+     * Mostly useful for asynchronous handlers returning `CompletableFuture` or `Mono`, where the message is
+     * acknowledged only once the returned future completes. When the limit is reached the consumer is paused
+     * until some of the in-flight messages complete. By default, asynchronous handlers and consumers handing messages
+     * over to other threads (`concurrency`, `executorThreads`, `virtualThreads`) are limited to 1000 messages, while
+     * synchronous handlers on the listener thread have no limit besides the receiver queue.
+     */
+    int maxInFlight() default -1;
+
+    /**
+     * (Optional) Number of in-flight messages at which the consumer paused by `maxInFlight` is resumed.
+     * By default, the consumer is resumed as soon as it drops below `maxInFlight`.
+     */
+    int resumeInFlight() default -1;
+
+    /**
+     * (Optional) Average handler latency (measured over one second windows) at which the consumer is paused,
+     * so a slowing downstream is not flooded with more messages. The consumer is resumed once the latency drops to
+     * `resumeLatencyMs`. A paused consumer handles no new messages, so after an empty window it is resumed to measure
+     * again. By default, latency is not watched.
+     */
+    long pauseLatencyMs() default -1;
+
+    /**
+     * (Optional) Average handler latency at which the paused consumer is resumed. By default, same as `pauseLatencyMs`.
+     */
+    long resumeLatencyMs() default -1;
+
+    /**
+     * (Optional) Share of failed messages (0 - 1, measured over one second windows of at least 10 messages) at which
+     * the consumer is paused to avoid redelivery storms. By default, error rate is not watched.
+     */
+    double pauseErrorRate() default -1;
+
+    /**
+     * (Optional) Share of failed messages at which the paused consumer is resumed. By default, same as `pauseErrorRate`.
+     */
+    double resumeErrorRate() default -1;
+
+    /**
+     * (Optional) Number of worker threads handling messages of this consumer in parallel.
+     * Messages are assigned to workers by the hash of their ordering key (or message key), so messages with the same
+     * key are still handled one after another in the order they were received. Messages without a key share one worker.
+     * When set above 1 and `maxInFlight` is not set, in-flight messages are limited to 1000.
+     * Not supported for batch consumers. By default, messages are handled on the Pulsar listener thread.
+     */
+    int concurrency() default 1;
+
+    /**
+     * (Optional) Number of messages the consumer prefetches into its receiver queue. Use a bigger queue for small
+     * payloads and a smaller one for huge payloads to keep the heap in check. By default, 1000 or the value
+     * from `application.properties`.
+     */
+    int receiverQueueSize() default -1;
+
+    /**
+     * (Optional) Maximum number of messages prefetched across all partitions of a partitioned topic.
+     * Pulsar default (50000) is used when not set.
+     */
+    int maxTotalReceiverQueueSizeAcrossPartitions() default -1;
+
+    /**
+     * (Optional) Maximum number of chunked messages held in memory while waiting for their remaining chunks.
+     * Pulsar default (10) is used when not set.
+     */
+    int maxPendingChunkedMessage() default -1;
+
+    /**
+     * (Optional) Whether the oldest incomplete chunked message is acknowledged and dropped once
+     * `maxPendingChunkedMessage` is reached, instead of being dropped without acknowledgment and redelivered.
+     * By default, the value is `false`
+     */
+    boolean autoAckOldestChunkedMessageOnQueueFull() default false;
+
+    /**
+     * (Optional) How long the chunks of an incomplete chunked message are kept before they are dropped.
+     * Pulsar default (1 minute) is used when not set.
+     */
+    long expireTimeOfIncompleteChunkedMessageMs() default -1;
+
+    /**
+     * (Optional) Receive messages into pooled buffers instead of copying every payload to the heap, and let the schema
+     * decode them in place (`PROTOBUF`, `PROTOBUF_NATIVE` and `ByteBuffer` handlers). A pooled message goes back to the
+     * pool once the handler returned (or its future completed) and the message was acknowledged, so neither
+     * the message, a {@link io.github.majusko.pulsar.PulsarMessage} wrapping it nor a `ByteBuffer` payload may be used
+     * afterwards. Failed messages stay valid until the `onError` subscribers return. Not supported for batch consumers.
+     * By default, the value is `false`
+     */
+    boolean poolMessages() default false;
+
+    /**
+     * Adapt the prefetch to the measured handler latency and payload size. The consumer keeps about one second of work
+     * in its receiver queue, at most 16MB of payload and never more than `receiverQueueSize` messages,
+     * by pausing the consumer while the queue is above the target. By default, the value is `false`
+     */
+    boolean adaptivePrefetch() default false;
+
+    /**
+     * Skip messages that were already handled, for handlers doing expensive work on redelivered messages.
+     * Duplicates are acknowledged without running the handler. `MESSAGE_ID` catches redeliveries after negative
+     * acknowledgments, ack timeouts and consumer failovers, `KEY` also messages published repeatedly with the same key,
+     * `SEQUENCE_ID` messages published again by the same producer with the same sequence id.
+     * Handled messages are remembered in memory, see `deduplicationMaxEntries`, `deduplicationTtlMs`
+     * and `deduplicationPersistent`. Not supported for batch consumers. By default, every message is handled.
+     */
+    DeduplicationMode deduplication() default DeduplicationMode.NONE;
+
+    /**
+     * (Optional) Remember handled messages in a memory-mapped file in `pulsar.deduplication-store-dir`,
+     * so duplicates are still recognized after the application restarts. By default, the value is `false`
+     */
+    boolean deduplicationPersistent() default false;
+
+    /**
+     * (Optional) Maximum number of handled messages remembered for deduplication. By default, 100000.
+     */
+    int deduplicationMaxEntries() default -1;
+
+    /**
+     * (Optional) How long a handled message is remembered for deduplication. By default, 10 minutes.
+     */
+    long deduplicationTtlMs() default -1;
+
+    /**
+     * (Optional) Number of consumers subscribed to the same subscription, each with its own receiver queue.
+     * The broker spreads messages across them, so a single application instance can use more cores.
+     * Supported by Shared and Key_Shared subscriptions only. Consumer names get the index of the consumer appended,
+     * starting from the second one. By default, there is a single consumer.
+     */
+    int consumers() default 1;
+
+    /**
+     * (Optional) Name of an executor configured in `pulsar.executors.<name>` the handler runs on, instead of
+     * the Pulsar listener threads shared by all consumers. Several consumers can share one executor.
+     * With `concurrency` of 1 messages are handled in parallel without ordering, with higher `concurrency`
+     * the per-key ordering is kept and the key lanes run on the executor threads.
+     */
+    String executor() default "";
+
+    /**
+     * (Optional) Number of threads of an executor dedicated to this consumer only.
+     * Ignored when `executor` is set.
+     */
+    int executorThreads() default -1;
+
+    /**
+     * (Optional) Queue capacity of the dedicated executor. By default, the capacity is 1000.
+     */
+    int executorQueueCapacity() default -1;
+
+    /**
+     * What happens with a message when the queue of the dedicated executor is full.
+     * By default, the Pulsar listener thread waits for free space in the queue.
+     */
+    RejectionPolicy executorRejectionPolicy() default RejectionPolicy.BLOCK;
+
+    /**
+     * (Optional) Run the handler on virtual threads (Java 21+), useful for handlers doing blocking calls.
+     * With `concurrency` of 1 every message gets its own virtual thread, messages are handled without ordering
+     * and at most `maxInFlight` (1000 by default) handlers run at the same time. With higher `concurrency`
+     * the per-key ordering is kept and every key lane runs on a virtual thread.
+     * On older Java versions a warning is logged and the consumer falls back to platform threads.
+     */
+    boolean virtualThreads() default false;
+
+    /**
+     * How handled messages are acknowledged. `CUMULATIVE` sends a single `acknowledgeCumulative` every `ackBatchSize`
+     * messages or `ackIntervalMs` milliseconds, which cuts the acknowledgment traffic at high message rates.
+     * It is supported by Exclusive and Failover subscriptions handled in order on the listener thread
+     * (no `concurrency`, `executor`, `virtualThreads` or asynchronous handler), other consumers fall back to `INDIVIDUAL`.
+     *
+     * By default, the mode is `INDIVIDUAL` but you can also override the default in `application.properties`.
+     */
+    AckMode[] ackMode() default {};
+
+    /**
+     * (Optional) Number of handled messages after which the cumulative acknowledgment is sent. By default, 1000.
+     */
+    int ackBatchSize() default -1;
+
+    /**
+     * (Optional) Interval of the periodic cumulative acknowledgment in milliseconds. By default, 100ms.
+     */
+    int ackIntervalMs() default -1;
+
+    /**
+     * (Optional) Time the Pulsar client groups acknowledgments for before sending them to the broker.
+     * Set 0 to send every acknowledgment right away. Pulsar default (100ms) is used when not set.
+     */
+    int ackGroupTimeMs() default -1;
 }
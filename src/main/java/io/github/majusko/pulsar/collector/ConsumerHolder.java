@@ -2,8 +2,13 @@ package io.github.majusko.pulsar.collector;
 
 import io.github.majusko.pulsar.PulsarMessage;
 import io.github.majusko.pulsar.annotation.PulsarConsumer;
+import reactor.core.publisher.Mono;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionStage;
 
 public class ConsumerHolder {
 
@@ -11,12 +16,24 @@ public class ConsumerHolder {
     private final Method handler;
     private final Object bean;
     private final Class<?> type;
+    private final HandlerInvoker invoker;
+    private final boolean wrapped;
+    private final boolean payload;
+    private final boolean async;
 
     ConsumerHolder(PulsarConsumer annotation, Method handler, Object bean, Class<?> type) {
         this.annotation = annotation;
         this.handler = handler;
         this.bean = bean;
         this.type = type;
+        this.invoker = HandlerInvokers.of(handler);
+
+        final Class<?> elementType = annotation.batch() ? getBatchElementType(handler) : type;
+        final Class<?> returnType = handler.getReturnType();
+
+        this.wrapped = elementType.isAssignableFrom(PulsarMessage.class);
+        this.payload = elementType == ByteBuffer.class;
+        this.async = CompletionStage.class.isAssignableFrom(returnType) || Mono.class.isAssignableFrom(returnType);
     }
 
     public PulsarConsumer getAnnotation() {
@@ -27,6 +44,10 @@ public class ConsumerHolder {
         return handler;
     }
 
+    public HandlerInvoker getInvoker() {
+        return invoker;
+    }
+
     public Object getBean() {
         return bean;
     }
@@ -36,6 +57,38 @@ public class ConsumerHolder {
     }
 
     public boolean isWrapped() {
-        return type.isAssignableFrom(PulsarMessage.class);
+        return wrapped;
+    }
+
+    /**
+     * Handlers accepting a {@link ByteBuffer} get a read-only view of the payload instead of the deserialized value.
+     */
+    public boolean isPayload() {
+        return payload;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public boolean isBatch() {
+        return annotation.batch();
+    }
+
+    private static Class<?> getBatchElementType(Method handler) {
+        final Type parameterType = handler.getGenericParameterTypes()[0];
+
+        if (parameterType instanceof ParameterizedType) {
+            final Type elementType = ((ParameterizedType) parameterType).getActualTypeArguments()[0];
+
+            if (elementType instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) elementType).getRawType();
+            }
+            if (elementType instanceof Class) {
+                return (Class<?>) elementType;
+            }
+        }
+
+        return Object.class;
     }
 }
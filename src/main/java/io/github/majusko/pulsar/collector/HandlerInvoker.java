@@ -0,0 +1,17 @@
+package io.github.majusko.pulsar.collector;
+
+/**
+ * Typed entry point into a `@PulsarConsumer` handler method. Instances are generated once per handler
+ * by {@link HandlerInvokers} so the message listener does not go through {@link java.lang.reflect.Method#invoke}
+ * on every message.
+ */
+@FunctionalInterface
+public interface HandlerInvoker {
+
+    /**
+     * Calls the handler on the given bean.
+     *
+     * @return value returned by the handler, `null` for `void` handlers
+     */
+    Object invoke(Object bean, Object message) throws Exception;
+}
@@ -0,0 +1,132 @@
+package io.github.majusko.pulsar.collector;
+
+import io.github.majusko.pulsar.error.exception.ConsumerInitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * Builds {@link HandlerInvoker} instances for consumer handler methods.
+ *
+ * Public handlers of public classes get a {@link LambdaMetafactory} generated invoker, which the JIT can inline
+ * the same way as a hand written lambda. Everything else (private/package-private handlers, primitive parameters,
+ * classes invisible from this class loader) falls back to a pre-adapted {@link MethodHandle}.
+ */
+public final class HandlerInvokers {
+
+    private static final Logger logger = LoggerFactory.getLogger(HandlerInvokers.class);
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+    private static final MethodType VOID_INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private HandlerInvokers() {
+    }
+
+    public static HandlerInvoker of(Method method) {
+        if (supportsLambdaMetafactory(method)) {
+            try {
+                return lambdaInvoker(method);
+            } catch (Throwable e) {
+                logger.debug("Falling back to method handle invoker for {}", method, e);
+            }
+        }
+
+        return methodHandleInvoker(method);
+    }
+
+    private static HandlerInvoker lambdaInvoker(Method method) throws Throwable {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle target = lookup.unreflect(method);
+        final Class<?> beanType = method.getDeclaringClass();
+        final Class<?> parameterType = method.getParameterTypes()[0];
+
+        if (method.getReturnType() == void.class) {
+            final CallSite site = LambdaMetafactory.metafactory(lookup, "invoke",
+                MethodType.methodType(VoidHandlerInvoker.class), VOID_INVOKER_TYPE, target,
+                MethodType.methodType(void.class, beanType, parameterType));
+            final VoidHandlerInvoker invoker = (VoidHandlerInvoker) site.getTarget().invokeExact();
+
+            return (bean, message) -> {
+                invoker.invoke(bean, message);
+                return null;
+            };
+        }
+
+        final CallSite site = LambdaMetafactory.metafactory(lookup, "invoke",
+            MethodType.methodType(HandlerInvoker.class), INVOKER_TYPE, target,
+            MethodType.methodType(Object.class, beanType, parameterType));
+
+        return (HandlerInvoker) site.getTarget().invokeExact();
+    }
+
+    private static HandlerInvoker methodHandleInvoker(Method method) {
+        try {
+            method.setAccessible(true);
+
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+
+            final MethodHandle adapted = handle.asType(INVOKER_TYPE);
+
+            return (bean, message) -> {
+                try {
+                    return (Object) adapted.invokeExact(bean, message);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            };
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ConsumerInitException("Failed to create invoker for " + method, e);
+        }
+    }
+
+    private static boolean supportsLambdaMetafactory(Method method) {
+        final Class<?> beanType = method.getDeclaringClass();
+
+        if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+            || !Modifier.isPublic(beanType.getModifiers()) || method.getParameterCount() != 1) {
+            return false;
+        }
+
+        final Class<?> parameterType = method.getParameterTypes()[0];
+
+        return !parameterType.isPrimitive()
+            && isVisible(beanType)
+            && isVisible(parameterType)
+            && isVisible(method.getReturnType());
+    }
+
+    /**
+     * Generated lambdas resolve their types through this class' loader, so handlers living in a child loader
+     * (for example devtools restart loader) must go through the method handle path.
+     */
+    private static boolean isVisible(Class<?> type) {
+        if (type.isPrimitive()) {
+            return true;
+        }
+
+        try {
+            return Class.forName(type.getName(), false, HandlerInvokers.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    interface VoidHandlerInvoker {
+        void invoke(Object bean, Object message) throws Exception;
+    }
+}
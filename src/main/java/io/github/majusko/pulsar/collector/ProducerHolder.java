@@ -1,6 +1,7 @@
 package io.github.majusko.pulsar.collector;
 
 import io.github.majusko.pulsar.constant.Serialization;
+import io.github.majusko.pulsar.producer.ProducerOptions;
 
 import java.util.Optional;
 
@@ -10,6 +11,7 @@ public class ProducerHolder {
     private final Class<?> clazz;
     private final Serialization serialization;
     private String cluster;
+    private ProducerOptions options = ProducerOptions.DEFAULT;
 
     public ProducerHolder(String topic, Class<?> clazz, Serialization serialization) {
         this.topic = topic;
@@ -22,6 +24,11 @@ public class ProducerHolder {
         this.cluster = cluster;
     }
 
+    public ProducerHolder(String topic, Class<?> clazz, Serialization serialization, String cluster, ProducerOptions options) {
+        this(topic, clazz, serialization, cluster);
+        this.options = options != null ? options : ProducerOptions.DEFAULT;
+    }
+
     public String getTopic() {
         return topic;
     }
@@ -37,4 +44,8 @@ public class ProducerHolder {
     public Serialization getSerialization() {
         return serialization;
     }
+
+    public ProducerOptions getOptions() {
+        return options;
+    }
 }
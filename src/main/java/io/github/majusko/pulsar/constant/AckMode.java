@@ -0,0 +1,17 @@
+package io.github.majusko.pulsar.constant;
+
+/**
+ * How successfully handled messages are acknowledged.
+ */
+public enum AckMode {
+    /**
+     * Every message is acknowledged on its own. The Pulsar client still groups the acknowledgments
+     * sent to the broker within the acknowledgment group time.
+     */
+    INDIVIDUAL,
+    /**
+     * Only the latest handled message is acknowledged with `acknowledgeCumulative` every N messages or T milliseconds,
+     * which acknowledges all the messages before it as well. Supported by Exclusive and Failover subscriptions only.
+     */
+    CUMULATIVE
+}
@@ -0,0 +1,26 @@
+package io.github.majusko.pulsar.constant;
+
+/**
+ * What identifies a message as a duplicate of a message that was already handled.
+ */
+public enum DeduplicationMode {
+    /**
+     * Every message is handled, even when it is redelivered.
+     */
+    NONE,
+    /**
+     * Messages with the same message id, which catches redeliveries after negative acknowledgments,
+     * ack timeouts and consumer failovers.
+     */
+    MESSAGE_ID,
+    /**
+     * Messages with the same key, which also catches messages published more than once by the producer.
+     * Messages without a key are always handled.
+     */
+    KEY,
+    /**
+     * Messages with the same producer name and sequence id, which catches messages the producer published again
+     * after a timeout or a restart without relying on the broker side deduplication.
+     */
+    SEQUENCE_ID
+}
@@ -0,0 +1,26 @@
+package io.github.majusko.pulsar.constant;
+
+/**
+ * What happens with a failed message when the error pipeline is full.
+ */
+public enum ErrorOverflowPolicy {
+    /**
+     * The consumer thread waits until there is free space in the pipeline, also while there are no `onError`
+     * subscribers yet. Nothing is lost but a slow or missing subscriber slows down or stops the consumers.
+     * Failures left in the pipeline on shutdown are spilled like with {@link #SPILL}.
+     */
+    BLOCK,
+    /**
+     * The oldest failed message waiting in the pipeline is dropped to make space for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * The failed message is written to the {@link io.github.majusko.pulsar.error.ErrorSpillSink}, a file in
+     * `pulsar.error-spill-dir` by default, instead of being delivered to the `onError` subscribers.
+     */
+    SPILL,
+    /**
+     * The failed message is only written to the application log and is lost for the `onError` subscribers.
+     */
+    LOG
+}
@@ -0,0 +1,19 @@
+package io.github.majusko.pulsar.constant;
+
+/**
+ * What happens with a message when the queue of a consumer executor is full.
+ */
+public enum RejectionPolicy {
+    /**
+     * The Pulsar listener thread waits until there is free space in the queue. Slows down the consumer.
+     */
+    BLOCK,
+    /**
+     * The handler runs directly on the Pulsar listener thread.
+     */
+    CALLER_RUNS,
+    /**
+     * The message is negatively acknowledged and redelivered later.
+     */
+    NACK
+}
@@ -5,5 +5,13 @@ public enum Serialization {
     AVRO,
     STRING,
     BYTE,
-    PROTOBUF
+    PROTOBUF,
+    /**
+     * JSON through Jackson readers and writers prebuilt per class, wire compatible with `JSON`.
+     */
+    FAST_JSON,
+    /**
+     * Protobuf with the schema registered as a protobuf descriptor instead of an Avro definition.
+     */
+    PROTOBUF_NATIVE
 }
@@ -0,0 +1,15 @@
+package io.github.majusko.pulsar.constant;
+
+/**
+ * What happens on application startup when some consumers fail to subscribe.
+ */
+public enum SubscribeFailurePolicy {
+    /**
+     * The startup fails with the first failed subscription or when the consumers don't subscribe in time.
+     */
+    FAIL_FAST,
+    /**
+     * The application starts and failed subscriptions are retried in background with a growing delay.
+     */
+    RETRY_IN_BACKGROUND
+}
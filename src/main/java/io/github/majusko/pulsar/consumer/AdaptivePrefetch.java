@@ -0,0 +1,77 @@
+package io.github.majusko.pulsar.consumer;
+
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.impl.ConsumerBase;
+
+/**
+ * Bounds how many messages are buffered in the receiver queue of a consumer based on the measured handler latency
+ * and payload size. The target keeps about `bufferTimeMs` worth of work buffered, but never more than `maxBytes`
+ * of payload and never more than the configured receiver queue size.
+ *
+ * The Pulsar client can't resize the receiver queue of a running consumer, so the target is enforced by pausing
+ * the consumer while the queue is above it and resuming it once the queue drained to half of it.
+ *
+ * Statistics are exponentially weighted moving averages updated without locking, concurrent updates may lose samples.
+ */
+public class AdaptivePrefetch {
+
+    private static final double WEIGHT = 0.1;
+
+    private final int maxPrefetch;
+    private final long bufferTimeNanos;
+    private final long maxBytes;
+
+    private volatile double averageLatencyNanos;
+    private volatile double averageSize;
+    private volatile int target;
+
+    public AdaptivePrefetch(int maxPrefetch, long bufferTimeMs, long maxBytes) {
+        this.maxPrefetch = Math.max(1, maxPrefetch);
+        this.bufferTimeNanos = bufferTimeMs * 1_000_000L;
+        this.maxBytes = maxBytes;
+        this.target = this.maxPrefetch;
+    }
+
+    public void record(int messages, long bytes, long latencyNanos) {
+        if (messages <= 0) {
+            return;
+        }
+
+        averageLatencyNanos = average(averageLatencyNanos, (double) latencyNanos / messages);
+        averageSize = average(averageSize, (double) bytes / messages);
+
+        final double byLatency = averageLatencyNanos > 0 ? bufferTimeNanos / averageLatencyNanos : maxPrefetch;
+        final double bySize = averageSize > 0 ? maxBytes / averageSize : maxPrefetch;
+
+        target = (int) Math.max(1, Math.min(maxPrefetch, Math.min(byLatency, bySize)));
+    }
+
+    /**
+     * Whether the consumer should stay paused, with hysteresis between the target and half of it.
+     */
+    public boolean isSaturated(Consumer<?> consumer, boolean paused) {
+        if (!(consumer instanceof ConsumerBase)) {
+            return false;
+        }
+
+        final int queued = ((ConsumerBase<?>) consumer).numMessagesInQueue();
+
+        return paused ? queued > target / 2 : queued >= target;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public double getAverageLatencyNanos() {
+        return averageLatencyNanos;
+    }
+
+    public double getAverageSize() {
+        return averageSize;
+    }
+
+    private static double average(double average, double sample) {
+        return average == 0 ? sample : average + WEIGHT * (sample - average);
+    }
+}
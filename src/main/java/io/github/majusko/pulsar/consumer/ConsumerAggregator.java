@@ -1,101 +1,261 @@
 package io.github.majusko.pulsar.consumer;
 
+import com.google.common.base.Strings;
 import io.github.majusko.pulsar.PulsarClientContainer;
 import io.github.majusko.pulsar.PulsarMessage;
 import io.github.majusko.pulsar.collector.ConsumerCollector;
 import io.github.majusko.pulsar.collector.ConsumerHolder;
+import io.github.majusko.pulsar.constant.AckMode;
+import io.github.majusko.pulsar.constant.DeduplicationMode;
+import io.github.majusko.pulsar.constant.ErrorOverflowPolicy;
+import io.github.majusko.pulsar.constant.SubscribeFailurePolicy;
+import io.github.majusko.pulsar.dedup.DeduplicationCache;
+import io.github.majusko.pulsar.dedup.IdempotencyStore;
+import io.github.majusko.pulsar.dedup.MappedIdempotencyStore;
+import io.github.majusko.pulsar.dedup.MemoryIdempotencyStore;
+import io.github.majusko.pulsar.error.ErrorPipeline;
+import io.github.majusko.pulsar.error.ErrorSpillSink;
 import io.github.majusko.pulsar.error.FailedMessage;
 import io.github.majusko.pulsar.error.exception.ClientInitException;
 import io.github.majusko.pulsar.error.exception.ConsumerInitException;
 import io.github.majusko.pulsar.properties.ConsumerProperties;
+import io.github.majusko.pulsar.properties.ExecutorProperties;
 import io.github.majusko.pulsar.properties.PulsarProperties;
+import io.github.majusko.pulsar.utils.MessageUtils;
 import io.github.majusko.pulsar.utils.SchemaUtils;
 import io.github.majusko.pulsar.utils.UrlBuildService;
+import io.github.majusko.pulsar.utils.VirtualThreads;
 import org.apache.pulsar.client.api.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringValueResolver;
 import reactor.core.Disposable;
-import reactor.core.publisher.Sinks;
-import reactor.util.concurrent.Queues;
+import reactor.core.publisher.Mono;
 
-import java.lang.reflect.Method;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Component
 @DependsOn({"consumerCollector"})
 public class ConsumerAggregator implements EmbeddedValueResolverAware {
 
-    private final Sinks.Many<FailedMessage> sink = Sinks.many().multicast().onBackpressureBuffer(Queues.SMALL_BUFFER_SIZE, false);
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerAggregator.class);
+    private static final int DEFAULT_DISPATCH_MAX_IN_FLIGHT = 1000;
+    private static final int DEFAULT_EXECUTOR_QUEUE_CAPACITY = 1000;
+    private static final int ACK_FLUSH_TIMEOUT_SECONDS = 5;
+    private static final long ADAPTIVE_PREFETCH_BUFFER_TIME_MS = 1000;
+    private static final long ADAPTIVE_PREFETCH_MAX_BYTES = 16 * 1024 * 1024;
+    private static final int DEFAULT_DEDUPLICATION_MAX_ENTRIES = 100_000;
+    private static final long DEFAULT_DEDUPLICATION_TTL_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long BATCH_RECEIVE_RETRY_MIN_DELAY_MS = 100;
+    private static final long BATCH_RECEIVE_RETRY_MAX_DELAY_MS = 30_000;
+    private static final long CUMULATIVE_ACK_FALLBACK_MS = TimeUnit.MINUTES.toMillis(10);
+
     private final ConsumerCollector consumerCollector;
     private final PulsarClientContainer clientContainer;
     private final UrlBuildService urlBuildService;
     private final ConsumerInterceptor consumerInterceptor;
+    private final ErrorSpillSink errorSpillSink;
+    private final ExecutorService batchExecutor = Executors.newCachedThreadPool(batchThreadFactory());
+    private final Map<String, ConsumerExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, MessageAcknowledger> acknowledgers = new ConcurrentHashMap<>();
+    private final Map<String, FlowController> flowControllers = new ConcurrentHashMap<>();
+    private final List<MessageDispatcher> dispatchers = new CopyOnWriteArrayList<>();
+    private final Map<String, DeduplicationCache> deduplicationCaches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreadFactory());
+
+    @Value("${pulsar.error-pipeline-capacity:1024}")
+    private int errorPipelineCapacity;
+
+    @Value("${pulsar.error-pipeline-overflow-policy:SPILL}")
+    private ErrorOverflowPolicy errorPipelineOverflowPolicy;
+
+    @Value("${pulsar.subscribe-timeout-ms:60000}")
+    private long subscribeTimeoutMs;
+
+    @Value("${pulsar.subscribe-failure-policy:FAIL_FAST}")
+    private SubscribeFailurePolicy subscribeFailurePolicy;
+
+    @Value("${pulsar.deduplication-store-dir:pulsar-deduplication}")
+    private String deduplicationStoreDir;
 
     private StringValueResolver stringValueResolver;
-    private List<Consumer> consumers;
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private ErrorPipeline errorPipeline;
+    private ConsumerSubscriber subscriber;
+    private volatile boolean draining;
 
 
     public ConsumerAggregator(ConsumerCollector consumerCollector, PulsarClientContainer clientContainer, UrlBuildService urlBuildService,
-                              ConsumerInterceptor consumerInterceptor) {
+                              ConsumerInterceptor consumerInterceptor, ErrorSpillSink errorSpillSink) {
         this.consumerCollector = consumerCollector;
         this.clientContainer = clientContainer;
         this.urlBuildService = urlBuildService;
         this.consumerInterceptor = consumerInterceptor;
+        this.errorSpillSink = errorSpillSink;
+    }
+
+    @PostConstruct
+    public void initErrorPipeline() {
+        errorPipeline = new ErrorPipeline(errorPipelineCapacity, errorPipelineOverflowPolicy, errorSpillSink,
+            errorPipelineThreadFactory());
+        subscriber = new ConsumerSubscriber(subscribeFailurePolicy, subscribeTimeoutMs, scheduler);
     }
 
     @EventListener(ApplicationReadyEvent.class)
     public void init() {
         Map<String, PulsarProperties> allProperties = clientContainer.getAllProperties();
-        consumers = consumerCollector.getConsumers().entrySet().stream()
+        final List<CompletableFuture<Consumer<?>>> subscriptions = new ArrayList<>();
+
+        try {
+            consumerCollector.getConsumers().entrySet().stream()
                 .filter(holder -> allProperties.get(holder.getValue().getAnnotation().cluster()).isAutoStart()
                         && holder.getValue().getAnnotation().autoStart())
-                .map(holder -> subscribe(holder.getKey(), holder.getValue()))
-                .collect(Collectors.toList());
+                .forEach(holder -> IntStream.range(0, getConsumerCount(holder.getKey(), holder.getValue()))
+                    .forEach(index -> subscriptions.add(subscribe(holder.getKey(), holder.getValue(), index))));
+        } catch (RuntimeException e) {
+            // Subscriptions started for the previous consumers would otherwise finish in background and start consuming.
+            draining = true;
+            ConsumerSubscriber.closeAll(subscriptions);
+            throw e;
+        }
 
+        try {
+            subscriber.await(subscriptions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ConsumerSubscriber.closeAll(subscriptions);
+            throw new ConsumerInitException("Failed to init consumer.", e);
+        } catch (ExecutionException e) {
+            throw new ConsumerInitException("Failed to init consumer.", unwrap(e.getCause()));
+        } catch (TimeoutException e) {
+            throw new ConsumerInitException("Failed to init consumer.",
+                new ClientInitException("Consumers didn't subscribe within " + subscribeTimeoutMs + " ms."));
+        }
+    }
 
+    private int getConsumerCount(String generatedConsumerName, ConsumerHolder holder) {
+        final int count = holder.getAnnotation().consumers();
+
+        try {
+            final SubscriptionType subscriptionType = urlBuildService.getSubscriptionType(holder);
+
+            if (count < 1) {
+                throw new ClientInitException("Consumer " + generatedConsumerName + " needs at least 1 consumer.");
+            }
+            if (count > 1 && subscriptionType != SubscriptionType.Shared && subscriptionType != SubscriptionType.Key_Shared) {
+                throw new ClientInitException("Multiple consumers of " + generatedConsumerName + " need a Shared or Key_Shared subscription.");
+            }
+        } catch (ClientInitException e) {
+            throw new ConsumerInitException("Failed to init consumer.", e);
+        }
+
+        return count;
     }
 
-    private Consumer<?> subscribe(String generatedConsumerName, ConsumerHolder holder) {
+    private CompletableFuture<Consumer<?>> subscribe(String generatedConsumerName, ConsumerHolder holder, int index) {
         try {
             PulsarProperties pulsarProperties = clientContainer.getProperties(holder.getAnnotation().cluster());
             final String consumerName = stringValueResolver.resolveStringValue(holder.getAnnotation().consumerName());
             final String cluster = stringValueResolver.resolveStringValue(holder.getAnnotation().cluster());
             final String subscriptionName = stringValueResolver.resolveStringValue(holder.getAnnotation().subscriptionName());
-            final String topicName = stringValueResolver.resolveStringValue(holder.getAnnotation().topic());
             final String namespace = stringValueResolver.resolveStringValue(holder.getAnnotation().namespace());
             final SubscriptionType subscriptionType = urlBuildService.getSubscriptionType(holder);
+            final MessageDispatcher dispatcher = buildDispatcher(generatedConsumerName, holder, pulsarProperties);
+            dispatchers.add(dispatcher);
+            final int receiverQueueSize = urlBuildService.getReceiverQueueSize(holder.getAnnotation().receiverQueueSize());
+            final FlowController flowController = new FlowController(buildFlowControlPolicy(holder, dispatcher),
+                holder.getAnnotation().adaptivePrefetch()
+                    ? new AdaptivePrefetch(receiverQueueSize, ADAPTIVE_PREFETCH_BUFFER_TIME_MS, ADAPTIVE_PREFETCH_MAX_BYTES)
+                    : null,
+                scheduler);
+            final String pulsarConsumerName = urlBuildService.buildPulsarConsumerName(consumerName, generatedConsumerName, index);
+            final long[] retryDelaysMs = urlBuildService.getRetryDelaysMs(holder.getAnnotation().enableRetry(),
+                Arrays.stream(holder.getAnnotation().retryDelays()).map(stringValueResolver::resolveStringValue).toArray(String[]::new));
+            final MessageAcknowledger acknowledger = buildAcknowledger(generatedConsumerName, pulsarConsumerName, holder,
+                subscriptionType, dispatcher, retryDelaysMs);
+            final DeduplicationCache deduplication = buildDeduplicationCache(generatedConsumerName, holder);
             final ConsumerBuilder<?> consumerBuilder = clientContainer.findClient(cluster)
                 .newConsumer(SchemaUtils.getSchema(holder.getAnnotation().serialization(),
                     holder.getAnnotation().clazz()))
-                .consumerName(urlBuildService.buildPulsarConsumerName(consumerName, generatedConsumerName))
+                .consumerName(pulsarConsumerName)
                 .subscriptionName(urlBuildService.buildPulsarSubscriptionName(subscriptionName, generatedConsumerName))
-                .topic(urlBuildService.buildTopicUrl(topicName, namespace))
                 .subscriptionType(subscriptionType)
-                .subscriptionInitialPosition(holder.getAnnotation().initialPosition())
-                .messageListener((consumer, msg) -> {
+                .subscriptionInitialPosition(holder.getAnnotation().initialPosition());
+
+            buildTopics(generatedConsumerName, holder, namespace, retryDelaysMs.length > 0, consumerBuilder);
+
+            if (holder.isBatch()) {
+                if (!holder.getType().isAssignableFrom(List.class)) {
+                    throw new ClientInitException("Batch consumer " + generatedConsumerName + " must accept a List.");
+                }
+
+                urlBuildService.buildBatchReceivePolicy(
+                    holder.getAnnotation().batchMaxMessages(),
+                    holder.getAnnotation().batchMaxBytes(),
+                    holder.getAnnotation().batchTimeoutMs(),
+                    consumerBuilder);
+            } else {
+                consumerBuilder.messageListener((consumer, msg) -> {
+                    if (draining) {
+                        msg.release();
+                        return;
+                    }
+                    if (deduplication != null && deduplication.isDuplicate(msg)) {
+                        acknowledger.acknowledge(consumer, msg);
+                        msg.release();
+                        return;
+                    }
+
+                    flowController.acquire(consumer, 1);
+
                     try {
-                        final Method method = holder.getHandler();
-                        method.setAccessible(true);
-
-                        if (holder.isWrapped()) {
-                            method.invoke(holder.getBean(), wrapMessage(msg));
-                        } else {
-                            method.invoke(holder.getBean(), msg.getValue());
-                        }
-
-                        consumer.acknowledge(msg);
-                    } catch (Exception e) {
-                        consumer.negativeAcknowledge(msg);
-                        sink.tryEmitNext(new FailedMessage(e, consumer, msg));
+                        dispatcher.dispatch(msg, () -> handleMessage(consumer, msg, holder, flowController, acknowledger, deduplication));
+                    } catch (RejectedExecutionException e) {
+                        onHandled(consumer, msg, flowController, acknowledger, deduplication, System.nanoTime(), e);
                     }
                 });
+            }
+
+            if (holder.getAnnotation().poolMessages()) {
+                if (holder.isBatch()) {
+                    throw new ClientInitException("Pooled messages are not supported by batch consumer " + generatedConsumerName + ".");
+                }
+
+                consumerBuilder.poolMessages(true);
+            }
 
             if (pulsarProperties.isAllowInterceptor()) {
                 consumerBuilder.intercept(consumerInterceptor);
@@ -108,36 +268,545 @@ public class ConsumerAggregator implements EmbeddedValueResolverAware {
             urlBuildService.buildDeadLetterPolicy(
                 holder.getAnnotation().maxRedeliverCount(),
                 holder.getAnnotation().deadLetterTopic(),
+                stringValueResolver.resolveStringValue(holder.getAnnotation().retryLetterTopic()),
+                retryDelaysMs,
+                consumerBuilder);
+
+            urlBuildService.buildNegativeAckRedeliveryBackoff(
+                holder.getAnnotation().negativeAckMinDelayMs(),
+                holder.getAnnotation().negativeAckMaxDelayMs(),
+                holder.getAnnotation().negativeAckMultiplier(),
+                consumerBuilder);
+
+            urlBuildService.buildAcknowledgmentGroupTime(holder.getAnnotation().ackGroupTimeMs(), consumerBuilder);
+
+            urlBuildService.buildReceiverQueue(
+                holder.getAnnotation().receiverQueueSize(),
+                holder.getAnnotation().maxTotalReceiverQueueSizeAcrossPartitions(),
+                consumerBuilder);
+
+            urlBuildService.buildChunkedMessages(
+                holder.getAnnotation().maxPendingChunkedMessage(),
+                holder.getAnnotation().autoAckOldestChunkedMessageOnQueueFull(),
+                holder.getAnnotation().expireTimeOfIncompleteChunkedMessageMs(),
                 consumerBuilder);
 
-            return consumerBuilder.subscribe();
-        } catch (PulsarClientException | ClientInitException e) {
+            return subscriber.subscribe(pulsarConsumerName, consumerBuilder).thenApply(consumer -> {
+                flowControllers.put(pulsarConsumerName, flowController);
+                consumers.add(consumer);
+
+                if (holder.isBatch()) {
+                    receiveBatch(consumer, holder, flowController, acknowledger, 0);
+                }
+
+                return consumer;
+            });
+        } catch (ClientInitException e) {
             throw new ConsumerInitException("Failed to init consumer.", e);
         }
     }
 
+    private void buildTopics(String generatedConsumerName, ConsumerHolder holder, String namespace, boolean retry,
+                             ConsumerBuilder<?> consumerBuilder) throws ClientInitException {
+        final List<String> topicNames = Stream.concat(Stream.of(holder.getAnnotation().topic()), Arrays.stream(holder.getAnnotation().topics()))
+            .map(stringValueResolver::resolveStringValue)
+            .filter(topic -> !Strings.isNullOrEmpty(topic))
+            .collect(Collectors.toList());
+        final String topicsPattern = stringValueResolver.resolveStringValue(holder.getAnnotation().topicsPattern());
+
+        if (Strings.isNullOrEmpty(topicsPattern)) {
+            if (topicNames.isEmpty()) {
+                throw new ClientInitException("Consumer " + generatedConsumerName + " needs a topic, topics or topicsPattern.");
+            }
+
+            consumerBuilder.topics(urlBuildService.buildTopicUrls(topicNames, namespace));
+            return;
+        }
+        if (!topicNames.isEmpty()) {
+            throw new ClientInitException("Consumer " + generatedConsumerName + " can't combine topicsPattern with topic or topics.");
+        }
+        if (retry) {
+            throw new ClientInitException("Retry letter topic is not supported by consumer " + generatedConsumerName + " with topicsPattern.");
+        }
+
+        try {
+            consumerBuilder.topicsPattern(urlBuildService.buildTopicsPattern(topicsPattern, namespace));
+        } catch (PatternSyntaxException e) {
+            throw new ClientInitException("Invalid topicsPattern of consumer " + generatedConsumerName + ".", e);
+        }
+
+        if (holder.getAnnotation().patternAutoDiscoveryPeriodSec() > 0) {
+            consumerBuilder.patternAutoDiscoveryPeriod(holder.getAnnotation().patternAutoDiscoveryPeriodSec(), TimeUnit.SECONDS);
+        }
+    }
+
+    private MessageDispatcher buildDispatcher(String generatedConsumerName, ConsumerHolder holder,
+                                              PulsarProperties pulsarProperties) throws ClientInitException {
+        final int concurrency = holder.getAnnotation().concurrency();
+        final ConsumerExecutor executor = findExecutor(generatedConsumerName, holder, pulsarProperties);
+
+        if (concurrency < 1) {
+            throw new ClientInitException("Concurrency of consumer " + generatedConsumerName + " must be at least 1.");
+        }
+        if (holder.isBatch() && (concurrency > 1 || executor != null)) {
+            throw new ClientInitException("Concurrency is not supported by batch consumer " + generatedConsumerName + ".");
+        }
+        if (holder.getAnnotation().virtualThreads()) {
+            if (holder.isBatch() || executor != null) {
+                throw new ClientInitException("Virtual threads can't be combined with batch or executor on consumer " + generatedConsumerName + ".");
+            }
+            if (VirtualThreads.isSupported()) {
+                final String threadNamePrefix = "pulsar-virtual-" + holder.getHandler().getName() + "-";
+
+                return concurrency == 1
+                    ? new VirtualThreadDispatcher(threadNamePrefix, getMaxInFlight(holder, null))
+                    : new KeyOrderedDispatcher(concurrency, VirtualThreads.newExecutor(threadNamePrefix));
+            }
+
+            logger.warn("Virtual threads require Java 21 or newer, consumer {} falls back to platform threads.", generatedConsumerName);
+        }
+        if (executor != null) {
+            return concurrency == 1 ? new ExecutorDispatcher(executor) : new KeyOrderedDispatcher(concurrency, executor);
+        }
+        if (concurrency == 1) {
+            return MessageDispatcher.DIRECT;
+        }
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pulsar-" + holder.getHandler().getName() + "-");
+        threadFactory.setDaemon(true);
+
+        return new KeyOrderedDispatcher(concurrency, threadFactory);
+    }
+
+    private ConsumerExecutor findExecutor(String generatedConsumerName, ConsumerHolder holder,
+                                          PulsarProperties pulsarProperties) throws ClientInitException {
+        final String name = stringValueResolver.resolveStringValue(holder.getAnnotation().executor());
+
+        if (name != null && !name.isEmpty()) {
+            final ExecutorProperties properties = pulsarProperties.getExecutors().get(name);
+
+            if (properties == null) {
+                throw new ClientInitException("Executor " + name + " of consumer " + generatedConsumerName + " is not configured.");
+            }
+
+            validateExecutor(name, properties.getThreads(), properties.getQueueCapacity());
+
+            return executors.computeIfAbsent(name, key -> new ConsumerExecutor(key, properties.getThreads(),
+                properties.getQueueCapacity(), properties.getRejectionPolicy()));
+        }
+
+        if (holder.getAnnotation().executorThreads() > 0) {
+            final int queueCapacity = holder.getAnnotation().executorQueueCapacity() > 0
+                ? holder.getAnnotation().executorQueueCapacity() : DEFAULT_EXECUTOR_QUEUE_CAPACITY;
+
+            validateExecutor(generatedConsumerName, holder.getAnnotation().executorThreads(), queueCapacity);
+
+            return executors.computeIfAbsent(generatedConsumerName, key -> new ConsumerExecutor(key,
+                holder.getAnnotation().executorThreads(), queueCapacity, holder.getAnnotation().executorRejectionPolicy()));
+        }
+
+        return null;
+    }
+
+    private static void validateExecutor(String name, int threads, int queueCapacity) throws ClientInitException {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new ClientInitException("Executor " + name + " needs at least 1 thread and queue capacity of at least 1.");
+        }
+    }
+
+    private MessageAcknowledger buildAcknowledger(String generatedConsumerName, String pulsarConsumerName, ConsumerHolder holder,
+                                                  SubscriptionType subscriptionType, MessageDispatcher dispatcher,
+                                                  long[] retryDelaysMs) throws ClientInitException {
+        final AckMode ackMode = urlBuildService.getAckMode(holder);
+
+        if (retryDelaysMs.length > 0) {
+            if (ackMode == AckMode.CUMULATIVE) {
+                logger.warn("Cumulative acknowledgment can't be combined with the retry letter topic, " +
+                    "consumer {} acknowledges messages individually.", generatedConsumerName);
+            }
+            return new RetryLetterAcknowledger(retryDelaysMs);
+        }
+        if (ackMode != AckMode.CUMULATIVE) {
+            return MessageAcknowledger.INDIVIDUAL;
+        }
+
+        if ((subscriptionType != SubscriptionType.Exclusive && subscriptionType != SubscriptionType.Failover)
+            || dispatcher != MessageDispatcher.DIRECT || holder.isAsync()) {
+            logger.warn("Cumulative acknowledgment needs an Exclusive or Failover subscription handled in order, " +
+                "consumer {} acknowledges messages individually.", generatedConsumerName);
+            return MessageAcknowledger.INDIVIDUAL;
+        }
+
+        final MessageAcknowledger acknowledger = new CumulativeAcknowledger(
+            urlBuildService.getAckBatchSize(holder.getAnnotation().ackBatchSize()),
+            urlBuildService.getAckIntervalMs(holder.getAnnotation().ackIntervalMs()),
+            CUMULATIVE_ACK_FALLBACK_MS,
+            scheduler);
+
+        acknowledgers.put(pulsarConsumerName, acknowledger);
+
+        return acknowledger;
+    }
+
+    /**
+     * All consumers of one `@PulsarConsumer` share the cache, because a redelivered message can land on any of them.
+     */
+    private DeduplicationCache buildDeduplicationCache(String generatedConsumerName, ConsumerHolder holder) throws ClientInitException {
+        final DeduplicationMode mode = holder.getAnnotation().deduplication();
+
+        if (mode == DeduplicationMode.NONE) {
+            return null;
+        }
+        if (holder.isBatch()) {
+            throw new ClientInitException("Deduplication is not supported by batch consumer " + generatedConsumerName + ".");
+        }
+
+        final DeduplicationCache existing = deduplicationCaches.get(generatedConsumerName);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        final int maxEntries = holder.getAnnotation().deduplicationMaxEntries() > 0
+            ? holder.getAnnotation().deduplicationMaxEntries()
+            : DEFAULT_DEDUPLICATION_MAX_ENTRIES;
+        final long ttlMs = holder.getAnnotation().deduplicationTtlMs() > 0
+            ? holder.getAnnotation().deduplicationTtlMs()
+            : DEFAULT_DEDUPLICATION_TTL_MS;
+        final IdempotencyStore store;
+
+        if (holder.getAnnotation().deduplicationPersistent()) {
+            final Path file = Paths.get(deduplicationStoreDir, generatedConsumerName.replaceAll("[^\\w.-]", "_") + ".dedup");
+
+            try {
+                store = new MappedIdempotencyStore(file, maxEntries, ttlMs);
+            } catch (IOException e) {
+                throw new ClientInitException("Failed to open deduplication store " + file + ".", e);
+            }
+        } else {
+            store = new MemoryIdempotencyStore(maxEntries, ttlMs);
+        }
+
+        final DeduplicationCache cache = new DeduplicationCache(mode, store);
+        final DeduplicationCache previous = deduplicationCaches.putIfAbsent(generatedConsumerName, cache);
+
+        if (previous != null) {
+            cache.close();
+            return previous;
+        }
+
+        return cache;
+    }
+
+    private FlowControlPolicy buildFlowControlPolicy(ConsumerHolder holder, MessageDispatcher dispatcher) {
+        return FlowControlPolicy.builder()
+            .maxInFlight(getMaxInFlight(holder, dispatcher))
+            .resumeInFlight(holder.getAnnotation().resumeInFlight())
+            .pauseLatencyMs(holder.getAnnotation().pauseLatencyMs())
+            .resumeLatencyMs(holder.getAnnotation().resumeLatencyMs())
+            .pauseErrorRate(holder.getAnnotation().pauseErrorRate())
+            .resumeErrorRate(holder.getAnnotation().resumeErrorRate())
+            .build();
+    }
+
+    /**
+     * Handlers running on the listener thread are limited by the receiver queue already. Asynchronous handlers and
+     * dispatchers return right away, so they get a default limit, otherwise the unfinished messages would pile up.
+     */
+    private int getMaxInFlight(ConsumerHolder holder, MessageDispatcher dispatcher) {
+        if (holder.getAnnotation().maxInFlight() > 0 || (dispatcher == MessageDispatcher.DIRECT && !holder.isAsync())) {
+            return holder.getAnnotation().maxInFlight();
+        }
+
+        return DEFAULT_DISPATCH_MAX_IN_FLIGHT;
+    }
+
+    private void handleMessage(Consumer<?> consumer, Message<?> msg, ConsumerHolder holder, FlowController flowController,
+                               MessageAcknowledger acknowledger, DeduplicationCache deduplication) {
+        final long startedAt = System.nanoTime();
+        final CompletionStage<?> completion;
+
+        try {
+            final Object result = holder.getInvoker().invoke(holder.getBean(), getArgument(holder, msg));
+
+            completion = holder.isAsync() ? toCompletionStage(result) : null;
+        } catch (Exception e) {
+            onHandled(consumer, msg, flowController, acknowledger, deduplication, startedAt, e);
+            return;
+        }
+
+        if (completion != null) {
+            completion.whenComplete((ignore, error) ->
+                onHandled(consumer, msg, flowController, acknowledger, deduplication, startedAt, error));
+        } else {
+            onHandled(consumer, msg, flowController, acknowledger, deduplication, startedAt, null);
+        }
+    }
+
+    private void onHandled(Consumer<?> consumer, Message<?> msg, FlowController flowController,
+                           MessageAcknowledger acknowledger, DeduplicationCache deduplication, long startedAt, Throwable error) {
+        flowController.record(1, msg.size(), System.nanoTime() - startedAt, error != null);
+        flowController.release(consumer, 1);
+
+        if (error == null) {
+            if (deduplication != null) {
+                deduplication.handled(msg);
+            }
+            acknowledger.acknowledge(consumer, msg);
+            msg.release();
+        } else {
+            acknowledger.negativeAcknowledge(consumer, msg);
+            // Released by the error pipeline once the subscribers are done with it.
+            errorPipeline.emit(new FailedMessage(unwrap(error), consumer, msg));
+        }
+    }
+
+    private void receiveBatch(Consumer<?> consumer, ConsumerHolder holder, FlowController flowController,
+                              MessageAcknowledger acknowledger, int failures) {
+        consumer.batchReceiveAsync()
+            .thenAcceptAsync(messages -> handleBatch(consumer, holder, flowController, acknowledger, messages), batchExecutor)
+            .whenComplete((ignore, error) -> {
+                if (error != null) {
+                    if (!(error.getCause() instanceof PulsarClientException.AlreadyClosedException) && !draining) {
+                        retryBatchReceive(consumer, holder, flowController, acknowledger, failures, error);
+                    }
+                } else if (!draining) {
+                    receiveBatch(consumer, holder, flowController, acknowledger, 0);
+                }
+            });
+    }
+
+    private void retryBatchReceive(Consumer<?> consumer, ConsumerHolder holder, FlowController flowController,
+                                   MessageAcknowledger acknowledger, int failures, Throwable error) {
+        final long delayMs = Math.min(BATCH_RECEIVE_RETRY_MAX_DELAY_MS,
+            BATCH_RECEIVE_RETRY_MIN_DELAY_MS << Math.min(failures, 16));
+
+        logger.error("Batch receive failed on consumer {}, retrying in {} ms", consumer.getConsumerName(), delayMs, error);
+
+        try {
+            scheduler.schedule(() -> receiveBatch(consumer, holder, flowController, acknowledger, failures + 1),
+                delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Batch receive stopped on consumer {}", consumer.getConsumerName());
+        }
+    }
+
+    private void handleBatch(Consumer<?> consumer, ConsumerHolder holder, FlowController flowController,
+                             MessageAcknowledger acknowledger, Messages<?> messages) {
+        if (messages.size() == 0 || draining) {
+            return;
+        }
+
+        flowController.acquire(consumer, messages.size());
+
+        final long startedAt = System.nanoTime();
+        final CompletionStage<?> completion;
+
+        try {
+            final List<Object> batch = new ArrayList<>(messages.size());
+
+            for (Message<?> msg : messages) {
+                batch.add(getArgument(holder, msg));
+            }
+
+            final Object result = holder.getInvoker().invoke(holder.getBean(), batch);
+
+            completion = holder.isAsync() ? toCompletionStage(result) : null;
+        } catch (Exception e) {
+            onBatchHandled(consumer, messages, flowController, acknowledger, startedAt, e);
+            return;
+        }
+
+        if (completion != null) {
+            completion.whenComplete((ignore, error) -> onBatchHandled(consumer, messages, flowController, acknowledger, startedAt, error));
+        } else {
+            onBatchHandled(consumer, messages, flowController, acknowledger, startedAt, null);
+        }
+    }
+
+    private void onBatchHandled(Consumer<?> consumer, Messages<?> messages, FlowController flowController,
+                                MessageAcknowledger acknowledger, long startedAt, Throwable error) {
+        long bytes = 0;
+
+        for (Message<?> msg : messages) {
+            bytes += msg.size();
+        }
+
+        flowController.record(messages.size(), bytes, System.nanoTime() - startedAt, error != null);
+        flowController.release(consumer, messages.size());
+
+        if (error == null) {
+            acknowledger.acknowledge(consumer, messages);
+        } else {
+            acknowledger.negativeAcknowledge(consumer, messages);
+            messages.forEach(msg -> errorPipeline.emit(new FailedMessage(unwrap(error), consumer, msg)));
+        }
+    }
+
+    private static CompletionStage<?> toCompletionStage(Object result) {
+        if (result instanceof CompletionStage) {
+            return (CompletionStage<?>) result;
+        }
+        if (result instanceof Mono) {
+            return ((Mono<?>) result).toFuture();
+        }
+
+        return CompletableFuture.completedFuture(result);
+    }
+
+    private static Exception unwrap(Throwable error) {
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        return cause instanceof Exception ? (Exception) cause : new CompletionException(cause);
+    }
+
     public <T> PulsarMessage<T> wrapMessage(Message<T> message) {
-        final PulsarMessage<T> pulsarMessage = new PulsarMessage<T>();
+        return new LazyPulsarMessage<>(message);
+    }
+
+    private Object getArgument(ConsumerHolder holder, Message<?> message) {
+        if (holder.isWrapped()) {
+            return wrapMessage(message);
+        }
+        if (holder.isPayload()) {
+            return MessageUtils.getPayload(message);
+        }
+
+        return message.getValue();
+    }
+
+    /**
+     * Stops handing new messages over to the handlers and pauses the consumers, so they stop fetching from the broker.
+     * Messages received afterwards are left unacknowledged and get redelivered once the consumer is closed.
+     */
+    public void pause() {
+        draining = true;
+        flowControllers.values().forEach(FlowController::close);
+        consumers.forEach(consumer -> consumer.pause());
+    }
+
+    /**
+     * Number of messages handed over to the handlers and not finished yet, across all consumers.
+     */
+    public int getInFlight() {
+        return flowControllers.values().stream().mapToInt(FlowController::getInFlight).sum();
+    }
+
+    /**
+     * Sends the acknowledgments held back by cumulative acknowledgers, releases the dispatcher and executor threads
+     * and closes the consumers, which flushes the acknowledgments grouped by the Pulsar client.
+     */
+    public CompletableFuture<Void> close() {
+        return CompletableFuture.allOf(acknowledgers.values().stream().map(MessageAcknowledger::close).toArray(CompletableFuture<?>[]::new))
+            .handle((ignore, error) -> {
+                if (error != null) {
+                    logger.warn("Failed to flush acknowledgments on shutdown.", error);
+                }
 
-        pulsarMessage.setValue(message.getValue());
-        pulsarMessage.setMessageId(message.getMessageId());
-        pulsarMessage.setSequenceId(message.getSequenceId());
-        pulsarMessage.setProperties(message.getProperties());
-        pulsarMessage.setTopicName(message.getTopicName());
-        pulsarMessage.setKey(message.getKey());
-        pulsarMessage.setEventTime(message.getEventTime());
-        pulsarMessage.setPublishTime(message.getPublishTime());
-        pulsarMessage.setProducerName(message.getProducerName());
+                dispatchers.forEach(MessageDispatcher::close);
+                executors.values().forEach(ConsumerExecutor::close);
 
-        return pulsarMessage;
+                return consumers.stream().map(consumer -> consumer.closeAsync()).toArray(CompletableFuture<?>[]::new);
+            })
+            .thenCompose(CompletableFuture::allOf);
+    }
+
+    /**
+     * Sends the acknowledgments held back by cumulative acknowledgers before the Pulsar clients are closed.
+     */
+    @PreDestroy
+    public void flushAcknowledgments() {
+        try {
+            CompletableFuture.allOf(acknowledgers.values().stream().map(MessageAcknowledger::close).toArray(CompletableFuture<?>[]::new))
+                .get(ACK_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Failed to flush acknowledgments on shutdown.", e);
+        } finally {
+            scheduler.shutdown();
+        }
+
+        try {
+            errorPipeline.close(ACK_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        deduplicationCaches.values().forEach(DeduplicationCache::close);
     }
 
     public List<Consumer> getConsumers() {
         return consumers;
     }
 
+    /**
+     * Time every consumer took to subscribe in milliseconds, by consumer name.
+     */
+    public Map<String, Long> getSubscribeLatencies() {
+        return subscriber.getLatencies();
+    }
+
+    /**
+     * Flow controllers of the subscribed consumers by consumer name, exposing whether the consumer is paused,
+     * in-flight messages, handler latency, error rate and pause statistics for metrics.
+     */
+    public Map<String, FlowController> getFlowControllers() {
+        return flowControllers;
+    }
+
+    /**
+     * Acknowledgers holding acknowledgments back, i.e. of consumers with cumulative acknowledgment, by consumer name.
+     */
+    public Map<String, MessageAcknowledger> getAcknowledgers() {
+        return acknowledgers;
+    }
+
+    /**
+     * Deduplication caches by generated consumer name, exposing hit and miss counts for metrics.
+     */
+    public Map<String, DeduplicationCache> getDeduplicationCaches() {
+        return deduplicationCaches;
+    }
+
+    /**
+     * Executors created for consumers, by name. Useful for publishing their utilization as metrics.
+     */
+    public Map<String, ConsumerExecutor> getExecutors() {
+        return executors;
+    }
+
+    /**
+     * Error pipeline delivering failed messages to `onError` subscribers, exposing emitted, dropped, spilled and
+     * logged counts for metrics.
+     */
+    public ErrorPipeline getErrorPipeline() {
+        return errorPipeline;
+    }
+
+    /**
+     * Subscribes to all failed messages. Subscribers run on the thread of the error pipeline, one failure after another.
+     */
     public Disposable onError(java.util.function.Consumer<? super FailedMessage> consumer) {
-        return sink.asFlux().subscribe(consumer);
+        return errorPipeline.subscribe(consumer);
+    }
+
+    private static ThreadFactory schedulerThreadFactory() {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pulsar-consumer-scheduler-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private static ThreadFactory errorPipelineThreadFactory() {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pulsar-error-pipeline-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private static ThreadFactory batchThreadFactory() {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pulsar-batch-listener-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
     }
 
     @Override
@@ -0,0 +1,153 @@
+package io.github.majusko.pulsar.consumer;
+
+import io.github.majusko.pulsar.constant.RejectionPolicy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size thread pool with a bounded queue that consumer handlers run on, so a slow consumer
+ * can't starve the other consumers sharing the Pulsar listener threads.
+ *
+ * Exposes its utilization so it can be published to a metrics registry.
+ */
+public class ConsumerExecutor implements Executor, AutoCloseable {
+
+    private final String name;
+    private final int queueCapacity;
+    private final RejectionPolicy rejectionPolicy;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final long createdAt = System.nanoTime();
+
+    public ConsumerExecutor(String name, int threads, int queueCapacity, RejectionPolicy rejectionPolicy) {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pulsar-executor-" + name + "-");
+        threadFactory.setDaemon(true);
+
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, new RejectionHandler()) {
+
+            private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+
+            @Override
+            protected void beforeExecute(Thread thread, Runnable task) {
+                startedAt.set(System.nanoTime());
+            }
+
+            @Override
+            protected void afterExecute(Runnable task, Throwable error) {
+                busyNanos.addAndGet(System.nanoTime() - startedAt.get());
+            }
+        };
+        this.executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * Runs the task on the pool. When the queue is full the configured {@link RejectionPolicy} applies,
+     * {@link RejectionPolicy#NACK} results in {@link RejectedExecutionException}.
+     */
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Queues the task without applying the rejection policy, the task runs on the calling thread when the queue is full.
+     * Only meant for work rescheduled from the pool threads themselves, where blocking on the own queue could deadlock
+     * the pool. Work submitted from outside the pool goes through {@link #execute(Runnable)}.
+     */
+    public void executeOrRun(Runnable task) {
+        if (executor.isShutdown() || !executor.getQueue().offer(task)) {
+            task.run();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getCompletedTaskCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Share of the pool's thread time spent running handlers since the executor was created, between 0 and 1.
+     */
+    public double getUtilization() {
+        final long available = (System.nanoTime() - createdAt) * executor.getCorePoolSize();
+
+        return available > 0 ? Math.min(1d, (double) busyNanos.get() / available) : 0d;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private class RejectionHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor pool) {
+            rejected.incrementAndGet();
+
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("Executor " + name + " is shut down.");
+            }
+
+            switch (rejectionPolicy) {
+                case BLOCK:
+                    blockUntilQueued(task, pool.getQueue());
+                    break;
+                case CALLER_RUNS:
+                    task.run();
+                    break;
+                default:
+                    throw new RejectedExecutionException("Queue of executor " + name + " is full.");
+            }
+        }
+
+        private void blockUntilQueued(Runnable task, BlockingQueue<Runnable> queue) {
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for executor " + name + ".", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.majusko.pulsar.consumer;
+
+import io.github.majusko.pulsar.constant.SubscribeFailurePolicy;
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.ConsumerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Subscribes consumers with `subscribeAsync`, so all consumers of the application subscribe in parallel instead of
+ * waiting for the broker one after another. Records how long every consumer took to subscribe and, with
+ * {@link SubscribeFailurePolicy#RETRY_IN_BACKGROUND}, retries failed subscriptions with a delay doubling from 1s up to 1 minute.
+ */
+public class ConsumerSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerSubscriber.class);
+    private static final long MIN_RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 60000;
+
+    private final SubscribeFailurePolicy failurePolicy;
+    private final long timeoutMs;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Long> latencies = new ConcurrentHashMap<>();
+
+    public ConsumerSubscriber(SubscribeFailurePolicy failurePolicy, long timeoutMs, ScheduledExecutorService scheduler) {
+        this.failurePolicy = failurePolicy;
+        this.timeoutMs = timeoutMs;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Starts the subscription. Every attempt subscribes a clone of the builder, so the builder stays reusable.
+     */
+    public CompletableFuture<Consumer<?>> subscribe(String consumerName, ConsumerBuilder<?> consumerBuilder) {
+        final CompletableFuture<Consumer<?>> result = new CompletableFuture<>();
+
+        subscribe(consumerName, consumerBuilder, System.nanoTime(), MIN_RETRY_DELAY_MS, result);
+
+        return result;
+    }
+
+    /**
+     * Waits for the subscriptions up to the timeout. With {@link SubscribeFailurePolicy#FAIL_FAST} a failed or late
+     * subscription fails the whole batch and the consumers subscribed so far are closed, with
+     * {@link SubscribeFailurePolicy#RETRY_IN_BACKGROUND} the unfinished subscriptions keep going after the timeout.
+     */
+    public void await(List<CompletableFuture<Consumer<?>>> subscriptions) throws ExecutionException, TimeoutException, InterruptedException {
+        final long startedAt = System.nanoTime();
+        final CompletableFuture<Void> all = CompletableFuture.allOf(subscriptions.toArray(new CompletableFuture<?>[0]));
+
+        try {
+            all.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (failurePolicy == SubscribeFailurePolicy.RETRY_IN_BACKGROUND) {
+                logger.warn("{} of {} consumers didn't subscribe within {} ms, retrying in background.",
+                    subscriptions.stream().filter(subscription -> !subscription.isDone()).count(), subscriptions.size(), timeoutMs);
+                return;
+            }
+
+            closeAll(subscriptions);
+            throw e;
+        } catch (ExecutionException e) {
+            closeAll(subscriptions);
+            throw e;
+        }
+
+        logger.info("Subscribed {} consumers in {} ms, the slowest took {} ms.", subscriptions.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+            latencies.values().stream().mapToLong(Long::longValue).max().orElse(0));
+    }
+
+    /**
+     * Time from the start of the subscription until the consumer subscribed in milliseconds, by consumer name.
+     * Includes failed attempts retried in background.
+     */
+    public Map<String, Long> getLatencies() {
+        return latencies;
+    }
+
+    public SubscribeFailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    private void subscribe(String consumerName, ConsumerBuilder<?> consumerBuilder, long startedAt, long retryDelayMs,
+                           CompletableFuture<Consumer<?>> result) {
+        consumerBuilder.clone().subscribeAsync().whenComplete((consumer, error) -> {
+            if (error == null) {
+                final long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+                latencies.put(consumerName, latencyMs);
+                logger.debug("Consumer {} subscribed in {} ms.", consumerName, latencyMs);
+                result.complete(consumer);
+            } else if (failurePolicy == SubscribeFailurePolicy.RETRY_IN_BACKGROUND && !scheduler.isShutdown()) {
+                logger.warn("Consumer {} failed to subscribe, retrying in {} ms.", consumerName, retryDelayMs, error);
+                scheduler.schedule(() -> subscribe(consumerName, consumerBuilder, startedAt,
+                    Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS), result), retryDelayMs, TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * Closes the consumers of the subscriptions once they subscribed, including those still retrying in background.
+     */
+    static void closeAll(List<CompletableFuture<Consumer<?>>> subscriptions) {
+        subscriptions.forEach(subscription -> subscription.thenAccept(Consumer::closeAsync));
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.majusko.pulsar.consumer;
+
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.MessageId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acknowledges handled messages with a single `acknowledgeCumulative` call per topic every `batchSize` messages
+ * or every `intervalMs` milliseconds, whichever comes first.
+ *
+ * Messages have to be reported in the order they were received, which holds for Exclusive and Failover
+ * subscriptions handled on the listener thread. A cumulative acknowledgment would also acknowledge a message that
+ * failed before it, so after a failure the topic is flushed up to the last handled message and falls back to
+ * individual acknowledgments until the failed messages are redelivered and handled successfully. Failed messages
+ * which never come back, e.g. because they were sent to the dead letter topic, end the fallback `fallbackMs` after
+ * the last failure on the topic.
+ *
+ * Once closed, messages are acknowledged individually right away.
+ */
+public class CumulativeAcknowledger implements MessageAcknowledger {
+
+    private static final Logger logger = LoggerFactory.getLogger(CumulativeAcknowledger.class);
+
+    private final int batchSize;
+    private final Map<String, MessageId> lastHandled = new HashMap<>();
+    private final Map<String, Set<MessageId>> failed = new HashMap<>();
+    private final Map<String, Long> failedAt = new HashMap<>();
+    private final long fallbackNanos;
+    private final ScheduledFuture<?> timer;
+
+    private Consumer<?> consumer;
+    private int pending;
+    private boolean closed;
+
+    public CumulativeAcknowledger(int batchSize, int intervalMs, long fallbackMs, ScheduledExecutorService scheduler) {
+        this.batchSize = batchSize;
+        this.fallbackNanos = TimeUnit.MILLISECONDS.toNanos(fallbackMs);
+        this.timer = intervalMs > 0
+            ? scheduler.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS)
+            : null;
+    }
+
+    @Override
+    public synchronized void acknowledge(Consumer<?> consumer, Message<?> message) {
+        if (closed) {
+            consumer.acknowledgeAsync(message);
+            return;
+        }
+
+        this.consumer = consumer;
+
+        final String topic = message.getTopicName();
+        final Set<MessageId> failedIds = failed.get(topic);
+
+        if (failedIds != null) {
+            if (failedIds.remove(message.getMessageId()) || System.nanoTime() - failedAt.get(topic) < fallbackNanos) {
+                consumer.acknowledgeAsync(message);
+
+                if (failedIds.isEmpty()) {
+                    failed.remove(topic);
+                    failedAt.remove(topic);
+                }
+                return;
+            }
+
+            logger.warn("{} failed messages of topic {} didn't come back, consumer {} acknowledges cumulatively again.",
+                failedIds.size(), topic, consumer.getConsumerName());
+            failed.remove(topic);
+            failedAt.remove(topic);
+        }
+
+        lastHandled.put(message.getTopicName(), message.getMessageId());
+
+        if (++pending >= batchSize && batchSize > 0) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void negativeAcknowledge(Consumer<?> consumer, Message<?> message) {
+        if (closed) {
+            consumer.negativeAcknowledge(message);
+            return;
+        }
+
+        this.consumer = consumer;
+
+        final MessageId last = lastHandled.remove(message.getTopicName());
+
+        if (last != null) {
+            acknowledgeCumulative(last);
+        }
+
+        failed.computeIfAbsent(message.getTopicName(), topic -> new HashSet<>()).add(message.getMessageId());
+        failedAt.put(message.getTopicName(), System.nanoTime());
+        consumer.negativeAcknowledge(message);
+    }
+
+    /**
+     * Sends the cumulative acknowledgments of all handled messages right away.
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(lastHandled.size());
+
+        lastHandled.values().forEach(messageId -> futures.add(acknowledgeCumulative(messageId)));
+        lastHandled.clear();
+        pending = 0;
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Stops the periodic flush, flushes the remaining acknowledgments and acknowledges later messages individually.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> close() {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+
+        closed = true;
+
+        return flush();
+    }
+
+    private CompletableFuture<Void> acknowledgeCumulative(MessageId messageId) {
+        final Consumer<?> target = consumer;
+
+        return target.acknowledgeCumulativeAsync(messageId).whenComplete((ignore, error) -> {
+            if (error != null) {
+                logger.warn("Cumulative acknowledgment failed on consumer {}", target.getConsumerName(), error);
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.majusko.pulsar.consumer;
+
+import org.apache.pulsar.client.api.Message;
+
+/**
+ * Hands every message over to a {@link ConsumerExecutor} as a separate task. Messages are handled in parallel
+ * without any ordering guarantee, the queue bound and the rejection policy of the executor apply to each message.
+ *
+ * The executor may be shared by several consumers, so closing the dispatcher leaves it running.
+ */
+public class ExecutorDispatcher implements MessageDispatcher {
+
+    private final ConsumerExecutor executor;
+
+    public ExecutorDispatcher(ConsumerExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void dispatch(Message<?> message, Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public void close() {
+    }
+}
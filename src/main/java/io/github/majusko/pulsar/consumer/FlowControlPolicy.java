@@ -0,0 +1,162 @@
+package io.github.majusko.pulsar.consumer;
+
+/**
+ * High and low watermarks of a {@link FlowController}. The consumer is paused once any metric reaches its high
+ * watermark and resumed when all of them are back at or below their low watermarks.
+ * Watermarks that are not set (zero or negative) are not watched.
+ */
+public class FlowControlPolicy {
+
+    public static final FlowControlPolicy DISABLED = builder().build();
+
+    private final int maxInFlight;
+    private final int resumeInFlight;
+    private final long pauseLatencyMs;
+    private final long resumeLatencyMs;
+    private final double pauseErrorRate;
+    private final double resumeErrorRate;
+    private final long windowMs;
+    private final int minWindowSamples;
+
+    private FlowControlPolicy(FlowControlPolicyBuilder builder) {
+        this.maxInFlight = builder.maxInFlight;
+        this.resumeInFlight = builder.resumeInFlight > 0 ? builder.resumeInFlight : builder.maxInFlight - 1;
+        this.pauseLatencyMs = builder.pauseLatencyMs;
+        this.resumeLatencyMs = builder.resumeLatencyMs > 0 ? builder.resumeLatencyMs : builder.pauseLatencyMs;
+        this.pauseErrorRate = builder.pauseErrorRate;
+        this.resumeErrorRate = builder.resumeErrorRate > 0 ? builder.resumeErrorRate : builder.pauseErrorRate;
+        this.windowMs = builder.windowMs;
+        this.minWindowSamples = builder.minWindowSamples;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getResumeInFlight() {
+        return resumeInFlight;
+    }
+
+    public long getPauseLatencyMs() {
+        return pauseLatencyMs;
+    }
+
+    public long getResumeLatencyMs() {
+        return resumeLatencyMs;
+    }
+
+    public double getPauseErrorRate() {
+        return pauseErrorRate;
+    }
+
+    public double getResumeErrorRate() {
+        return resumeErrorRate;
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public int getMinWindowSamples() {
+        return minWindowSamples;
+    }
+
+    /**
+     * Whether latency or error rate are watched, which needs a timer closing the measuring windows.
+     */
+    public boolean isWindowed() {
+        return pauseLatencyMs > 0 || pauseErrorRate > 0;
+    }
+
+    public static FlowControlPolicyBuilder builder() {
+        return new FlowControlPolicyBuilder();
+    }
+
+    public static class FlowControlPolicyBuilder {
+
+        /**
+         * Number of messages handed over to handlers and not acknowledged yet at which the consumer is paused.
+         */
+        private int maxInFlight = -1;
+
+        /**
+         * Number of in-flight messages at which the paused consumer is resumed. By default, one below `maxInFlight`.
+         */
+        private int resumeInFlight = -1;
+
+        /**
+         * Average handler latency within a window at which the consumer is paused.
+         */
+        private long pauseLatencyMs = -1;
+
+        /**
+         * Average handler latency at which the paused consumer is resumed. By default, same as `pauseLatencyMs`.
+         */
+        private long resumeLatencyMs = -1;
+
+        /**
+         * Share of failed messages within a window (0 - 1) at which the consumer is paused.
+         */
+        private double pauseErrorRate = -1;
+
+        /**
+         * Share of failed messages at which the paused consumer is resumed. By default, same as `pauseErrorRate`.
+         */
+        private double resumeErrorRate = -1;
+
+        /**
+         * Length of the window latency and error rate are measured in. A paused consumer handles no new messages,
+         * so an empty window resumes it to measure again.
+         */
+        private long windowMs = 1000;
+
+        /**
+         * Minimum number of handled messages in a window for the error rate to be considered.
+         */
+        private int minWindowSamples = 10;
+
+        public FlowControlPolicyBuilder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public FlowControlPolicyBuilder resumeInFlight(int resumeInFlight) {
+            this.resumeInFlight = resumeInFlight;
+            return this;
+        }
+
+        public FlowControlPolicyBuilder pauseLatencyMs(long pauseLatencyMs) {
+            this.pauseLatencyMs = pauseLatencyMs;
+            return this;
+        }
+
+        public FlowControlPolicyBuilder resumeLatencyMs(long resumeLatencyMs) {
+            this.resumeLatencyMs = resumeLatencyMs;
+            return this;
+        }
+
+        public FlowControlPolicyBuilder pauseErrorRate(double pauseErrorRate) {
+            this.pauseErrorRate = pauseErrorRate;
+            return this;
+        }
+
+        public FlowControlPolicyBuilder resumeErrorRate(double resumeErrorRate) {
+            this.resumeErrorRate = resumeErrorRate;
+            return this;
+        }
+
+        public FlowControlPolicyBuilder windowMs(long windowMs) {
+            this.windowMs = windowMs;
+            return this;
+        }
+
+        public FlowControlPolicyBuilder minWindowSamples(int minWindowSamples) {
+            this.minWindowSamples = minWindowSamples;
+            return this;
+        }
+
+        public FlowControlPolicy build() {
+            return new FlowControlPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package io.github.majusko.pulsar.consumer;
+
+import org.apache.pulsar.client.api.Consumer;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pauses the consumer while the downstream can't keep up and resumes it once it recovered. Watched are the number of
+ * messages handed over to a handler but not yet acknowledged, the average handler latency and the error rate,
+ * each with a high watermark pausing the consumer and a low watermark resuming it (see {@link FlowControlPolicy}).
+ *
+ * In-flight messages are checked on every message, latency and error rate at the end of every measuring window.
+ * With {@link AdaptivePrefetch} the consumer is also paused while its receiver queue holds more messages
+ * than the adaptive target.
+ *
+ * Pausing stops the consumer from requesting more messages from the broker, messages that are already
+ * sitting in the receiver queue are still delivered to the handler.
+ */
+public class FlowController {
+
+    private final FlowControlPolicy policy;
+    private final AdaptivePrefetch prefetch;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder windowHandled = new LongAdder();
+    private final LongAdder windowFailed = new LongAdder();
+    private final LongAdder windowLatencyNanos = new LongAdder();
+    private final AtomicLong pauseCount = new AtomicLong();
+    private final AtomicLong pausedNanos = new AtomicLong();
+    private final ScheduledFuture<?> windowTimer;
+
+    private volatile Consumer<?> consumer;
+    private volatile boolean paused;
+    private volatile long pausedAt;
+    private volatile double latencyMs;
+    private volatile double errorRate;
+    private volatile boolean closed;
+
+    public FlowController(int maxInFlight) {
+        this(FlowControlPolicy.builder().maxInFlight(maxInFlight).build(), null, null);
+    }
+
+    /**
+     * @param scheduler closes the measuring windows, only used when the policy watches latency or error rate
+     */
+    public FlowController(FlowControlPolicy policy, AdaptivePrefetch prefetch, ScheduledExecutorService scheduler) {
+        this.policy = policy;
+        this.prefetch = prefetch;
+        this.windowTimer = policy.isWindowed() && scheduler != null
+            ? scheduler.scheduleAtFixedRate(this::closeWindow, policy.getWindowMs(), policy.getWindowMs(), TimeUnit.MILLISECONDS)
+            : null;
+    }
+
+    public void acquire(Consumer<?> consumer, int permits) {
+        this.consumer = consumer;
+        inFlight.addAndGet(permits);
+
+        if (!paused && shouldPause(consumer, false)) {
+            pause(consumer);
+        }
+    }
+
+    public void release(Consumer<?> consumer, int permits) {
+        inFlight.addAndGet(-permits);
+
+        if (paused && !shouldPause(consumer, true)) {
+            resume(consumer);
+        }
+    }
+
+    /**
+     * Records handled messages, their payload size, how long the handler took and whether it failed.
+     */
+    public void record(int messages, long bytes, long latencyNanos, boolean failed) {
+        windowHandled.add(messages);
+        windowLatencyNanos.add(latencyNanos);
+
+        if (failed) {
+            windowFailed.add(messages);
+        } else if (prefetch != null) {
+            prefetch.record(messages, bytes, latencyNanos);
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxInFlight() {
+        return policy.getMaxInFlight();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Average handler latency in the last measuring window.
+     */
+    public double getLatencyMs() {
+        return latencyMs;
+    }
+
+    /**
+     * Share of failed messages in the last measuring window.
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public long getPauseCount() {
+        return pauseCount.get();
+    }
+
+    /**
+     * Total time the consumer spent paused, including the ongoing pause.
+     */
+    public long getPausedTimeMs() {
+        final long ongoing = paused ? System.nanoTime() - pausedAt : 0;
+
+        return TimeUnit.NANOSECONDS.toMillis(pausedNanos.get() + ongoing);
+    }
+
+    public FlowControlPolicy getPolicy() {
+        return policy;
+    }
+
+    public AdaptivePrefetch getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Stops the measuring windows. A closed controller no longer pauses nor resumes the consumer,
+     * so a consumer paused for shutdown stays paused.
+     */
+    public synchronized void close() {
+        closed = true;
+
+        if (windowTimer != null) {
+            windowTimer.cancel(false);
+        }
+    }
+
+    private void closeWindow() {
+        final long handled = windowHandled.sumThenReset();
+        final long failed = windowFailed.sumThenReset();
+        final long latencyNanos = windowLatencyNanos.sumThenReset();
+
+        latencyMs = handled > 0 ? latencyNanos / 1_000_000d / handled : 0;
+        errorRate = handled >= policy.getMinWindowSamples() && handled > 0 ? (double) failed / handled : 0;
+
+        final Consumer<?> current = consumer;
+
+        if (current == null) {
+            return;
+        }
+        if (!paused && shouldPause(current, false)) {
+            pause(current);
+        } else if (paused && !shouldPause(current, true)) {
+            resume(current);
+        }
+    }
+
+    /**
+     * Paused consumers are compared with the low watermarks, running ones with the high watermarks.
+     */
+    private boolean shouldPause(Consumer<?> consumer, boolean paused) {
+        final int maxInFlight = policy.getMaxInFlight();
+        final long pauseLatencyMs = policy.getPauseLatencyMs();
+        final double pauseErrorRate = policy.getPauseErrorRate();
+
+        if (maxInFlight > 0 && (paused ? inFlight.get() > policy.getResumeInFlight() : inFlight.get() >= maxInFlight)) {
+            return true;
+        }
+        if (pauseLatencyMs > 0 && (paused ? latencyMs > policy.getResumeLatencyMs() : latencyMs >= pauseLatencyMs)) {
+            return true;
+        }
+        if (pauseErrorRate > 0 && (paused ? errorRate > policy.getResumeErrorRate() : errorRate >= pauseErrorRate)) {
+            return true;
+        }
+
+        return prefetch != null && prefetch.isSaturated(consumer, paused);
+    }
+
+    private synchronized void pause(Consumer<?> consumer) {
+        if (!closed && !paused && shouldPause(consumer, false)) {
+            consumer.pause();
+            paused = true;
+            pausedAt = System.nanoTime();
+            pauseCount.incrementAndGet();
+        }
+    }
+
+    private synchronized void resume(Consumer<?> consumer) {
+        if (!closed && paused && !shouldPause(consumer, true)) {
+            consumer.resume();
+            paused = false;
+            pausedNanos.addAndGet(System.nanoTime() - pausedAt);
+        }
+    }
+}
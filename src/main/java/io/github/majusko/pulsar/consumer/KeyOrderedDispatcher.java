@@ -0,0 +1,90 @@
+package io.github.majusko.pulsar.consumer;
+
+import io.github.majusko.pulsar.constant.RejectionPolicy;
+import org.apache.pulsar.client.api.Message;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Spreads messages over a fixed number of lanes by the hash of the message ordering key (or message key).
+ * Every lane is a {@link SerialExecutor}, so messages with the same key are handled one after another
+ * in the order they were received, while different keys are handled in parallel.
+ *
+ * Messages without any key share a single lane and keep their relative order.
+ *
+ * Lanes either run on threads owned by the dispatcher or on a shared {@link ConsumerExecutor}. On a shared executor
+ * every lane holds at most as many messages as the executor queue, and a full lane or a full executor queue applies
+ * the {@link RejectionPolicy} of the executor on the listener thread. {@link RejectionPolicy#CALLER_RUNS} waits for
+ * a full lane instead of running the handler right away, which would overtake messages of the same key.
+ */
+public class KeyOrderedDispatcher implements MessageDispatcher {
+
+    private final SerialExecutor[] lanes;
+    private final ExecutorService ownedExecutor;
+
+    public KeyOrderedDispatcher(int concurrency, ThreadFactory threadFactory) {
+        this(concurrency, Executors.newFixedThreadPool(concurrency, threadFactory));
+    }
+
+    /**
+     * Lanes run on the given executor, which is shut down when the dispatcher is closed.
+     */
+    public KeyOrderedDispatcher(int concurrency, ExecutorService executor) {
+        this.ownedExecutor = executor;
+        this.lanes = buildLanes(concurrency, executor);
+    }
+
+    public KeyOrderedDispatcher(int concurrency, ConsumerExecutor executor) {
+        this.ownedExecutor = null;
+        this.lanes = new SerialExecutor[concurrency];
+
+        for (int i = 0; i < concurrency; i++) {
+            lanes[i] = new SerialExecutor(executor, executor::executeOrRun, executor.getQueueCapacity(),
+                executor.getRejectionPolicy() != RejectionPolicy.NACK);
+        }
+    }
+
+    private static SerialExecutor[] buildLanes(int concurrency, Executor executor) {
+        final SerialExecutor[] lanes = new SerialExecutor[concurrency];
+
+        for (int i = 0; i < concurrency; i++) {
+            lanes[i] = new SerialExecutor(executor);
+        }
+
+        return lanes;
+    }
+
+    @Override
+    public void dispatch(Message<?> message, Runnable task) {
+        lanes[laneOf(message, lanes.length)].execute(task);
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    public static int laneOf(Message<?> message, int lanes) {
+        if (lanes == 1) {
+            return 0;
+        }
+
+        final int hash;
+
+        if (message.hasOrderingKey()) {
+            hash = Arrays.hashCode(message.getOrderingKey());
+        } else if (message.hasKey()) {
+            hash = message.getKey().hashCode();
+        } else {
+            hash = 0;
+        }
+
+        return Math.floorMod(hash ^ (hash >>> 16), lanes);
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.majusko.pulsar.consumer;
+
+import io.github.majusko.pulsar.PulsarMessage;
+import io.github.majusko.pulsar.utils.MessageUtils;
+import org.apache.pulsar.client.api.Message;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * {@link PulsarMessage} reading from the received {@link Message}. The value is deserialized, the properties map
+ * built and the payload copied only when the handler asks for them, and at most once.
+ * Values set through the setters take precedence over the underlying message.
+ */
+public class LazyPulsarMessage<T> extends PulsarMessage<T> {
+
+    private final Message<T> message;
+
+    private boolean valueLoaded;
+    private boolean propertiesLoaded;
+    private boolean dataLoaded;
+
+    public LazyPulsarMessage(Message<T> message) {
+        this.message = message;
+
+        setMessageId(message.getMessageId());
+        setSequenceId(message.getSequenceId());
+        setTopicName(message.getTopicName());
+        setKey(message.getKey());
+        setEventTime(message.getEventTime());
+        setPublishTime(message.getPublishTime());
+        setProducerName(message.getProducerName());
+        setRedeliveryCount(message.getRedeliveryCount());
+    }
+
+    @Override
+    public T getValue() {
+        if (!valueLoaded) {
+            setValue(message.getValue());
+        }
+
+        return super.getValue();
+    }
+
+    @Override
+    public void setValue(T value) {
+        super.setValue(value);
+        valueLoaded = true;
+    }
+
+    @Override
+    public Map<String, String> getProperties() {
+        if (!propertiesLoaded) {
+            setProperties(message.getProperties());
+        }
+
+        return super.getProperties();
+    }
+
+    @Override
+    public void setProperties(Map<String, String> properties) {
+        super.setProperties(properties);
+        propertiesLoaded = true;
+    }
+
+    @Override
+    public byte[] getData() {
+        if (!dataLoaded) {
+            setData(message.getData());
+        }
+
+        return super.getData();
+    }
+
+    @Override
+    public void setData(byte[] data) {
+        super.setData(data);
+        dataLoaded = true;
+    }
+
+    @Override
+    public ByteBuffer getDataBuffer() {
+        return dataLoaded ? super.getDataBuffer() : MessageUtils.getPayload(message);
+    }
+
+    /**
+     * The received message this instance reads from.
+     */
+    public Message<T> getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.majusko.pulsar.consumer;
+
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.Messages;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Acknowledges messages once their handler finished.
+ */
+public interface MessageAcknowledger {
+
+    /**
+     * Acknowledges every message on its own.
+     */
+    MessageAcknowledger INDIVIDUAL = new MessageAcknowledger() {
+        @Override
+        public void acknowledge(Consumer<?> consumer, Message<?> message) {
+            consumer.acknowledgeAsync(message);
+        }
+
+        @Override
+        public void acknowledge(Consumer<?> consumer, Messages<?> messages) {
+            consumer.acknowledgeAsync(messages);
+        }
+
+        @Override
+        public void negativeAcknowledge(Consumer<?> consumer, Message<?> message) {
+            consumer.negativeAcknowledge(message);
+        }
+
+        @Override
+        public void negativeAcknowledge(Consumer<?> consumer, Messages<?> messages) {
+            consumer.negativeAcknowledge(messages);
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            return CompletableFuture.completedFuture(null);
+        }
+    };
+
+    void acknowledge(Consumer<?> consumer, Message<?> message);
+
+    default void acknowledge(Consumer<?> consumer, Messages<?> messages) {
+        messages.forEach(message -> acknowledge(consumer, message));
+    }
+
+    void negativeAcknowledge(Consumer<?> consumer, Message<?> message);
+
+    default void negativeAcknowledge(Consumer<?> consumer, Messages<?> messages) {
+        messages.forEach(message -> negativeAcknowledge(consumer, message));
+    }
+
+    /**
+     * Sends acknowledgments held back by the acknowledger and stops accepting new ones.
+     */
+    CompletableFuture<Void> close();
+}
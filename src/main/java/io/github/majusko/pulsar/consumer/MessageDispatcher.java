@@ -0,0 +1,31 @@
+package io.github.majusko.pulsar.consumer;
+
+import org.apache.pulsar.client.api.Message;
+
+/**
+ * Decides on which thread the handler of a received message runs.
+ */
+public interface MessageDispatcher extends AutoCloseable {
+
+    /**
+     * Runs the handler directly on the Pulsar listener thread.
+     */
+    MessageDispatcher DIRECT = new MessageDispatcher() {
+        @Override
+        public void dispatch(Message<?> message, Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    void dispatch(Message<?> message, Runnable task);
+
+    /**
+     * Releases threads owned by the dispatcher. Tasks that are already queued are still executed.
+     */
+    @Override
+    void close();
+}
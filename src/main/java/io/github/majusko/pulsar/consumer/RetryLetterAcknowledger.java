@@ -0,0 +1,72 @@
+package io.github.majusko.pulsar.consumer;
+
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.util.RetryMessageUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends failed messages to the retry letter topic instead of negatively acknowledging them, so retries are
+ * delivered later off the main subscription instead of being redelivered in place. The delay grows in tiers:
+ * the n-th retry of a message waits `delaysMs[n]`, retries beyond the last tier wait the last delay.
+ * Once a message was retried `maxRedeliverCount` times, Pulsar sends it to the dead letter topic.
+ *
+ * When the message can't be published to the retry letter topic, it is negatively acknowledged.
+ */
+public class RetryLetterAcknowledger implements MessageAcknowledger {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryLetterAcknowledger.class);
+
+    private final long[] delaysMs;
+
+    public RetryLetterAcknowledger(long[] delaysMs) {
+        this.delaysMs = delaysMs;
+    }
+
+    @Override
+    public void acknowledge(Consumer<?> consumer, Message<?> message) {
+        consumer.acknowledgeAsync(message);
+    }
+
+    @Override
+    public void negativeAcknowledge(Consumer<?> consumer, Message<?> message) {
+        // Pooled messages may be released before the retry letter is sent, only the id is safe to keep.
+        final MessageId messageId = message.getMessageId();
+
+        consumer.reconsumeLaterAsync(message, getDelayMs(message), TimeUnit.MILLISECONDS).whenComplete((ignore, error) -> {
+            if (error != null) {
+                logger.warn("Failed to send message {} to the retry letter topic of consumer {}",
+                    messageId, consumer.getConsumerName(), error);
+                consumer.negativeAcknowledge(messageId);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Delay of the next retry, picked by the number of retries the message already went through.
+     */
+    public long getDelayMs(Message<?> message) {
+        final String reconsumeTimes = message.getProperty(RetryMessageUtil.SYSTEM_PROPERTY_RECONSUMETIMES);
+        int retries = 0;
+
+        if (reconsumeTimes != null) {
+            try {
+                retries = Integer.parseInt(reconsumeTimes);
+            } catch (NumberFormatException e) {
+                logger.debug("Unknown retry count {} of message {}", reconsumeTimes, message.getMessageId());
+            }
+        }
+
+        return delaysMs[Math.max(0, Math.min(retries, delaysMs.length - 1))];
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.majusko.pulsar.consumer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs submitted tasks one at a time and in submission order on top of a shared {@link Executor}.
+ * At most one thread of the backing executor is occupied by this instance at any time.
+ *
+ * A bounded instance holds at most `capacity` tasks, further submissions either wait for a free slot or are
+ * rejected with {@link RejectedExecutionException}.
+ */
+public class SerialExecutor implements Executor {
+
+    /**
+     * Gives other users of the backing executor a chance to run when this instance is always busy.
+     */
+    private static final int MAX_TASKS_PER_DRAIN = 64;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Executor executor;
+    private final Executor rescheduler;
+    private final Semaphore slots;
+    private final boolean blockWhenFull;
+
+    public SerialExecutor(Executor executor) {
+        this(executor, executor, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * The first task submitted to an idle instance is handed over to `executor` on the submitting thread, so its
+     * rejection policy applies. Remaining tasks are handed over to `rescheduler` from the threads of the executor itself.
+     */
+    public SerialExecutor(Executor executor, Executor rescheduler, int capacity, boolean blockWhenFull) {
+        this.executor = executor;
+        this.rescheduler = rescheduler;
+        this.slots = new Semaphore(capacity);
+        this.blockWhenFull = blockWhenFull;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        acquireSlot();
+        tasks.add(task);
+
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+
+                if (tasks.remove(task)) {
+                    slots.release();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void acquireSlot() {
+        if (!blockWhenFull) {
+            if (!slots.tryAcquire()) {
+                throw new RejectedExecutionException("Serial executor queue is full.");
+            }
+            return;
+        }
+
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for serial executor queue.", e);
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            int executed = 0;
+
+            while (executed++ < MAX_TASKS_PER_DRAIN && (task = tasks.poll()) != null) {
+                slots.release();
+                task.run();
+            }
+        } finally {
+            scheduled.set(false);
+
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                rescheduler.execute(this::drain);
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return tasks.size();
+    }
+}
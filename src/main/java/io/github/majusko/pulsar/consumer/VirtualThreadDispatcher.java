@@ -0,0 +1,52 @@
+package io.github.majusko.pulsar.consumer;
+
+import io.github.majusko.pulsar.utils.VirtualThreads;
+import org.apache.pulsar.client.api.Message;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs every handler on its own virtual thread, so blocking handlers don't hold platform threads.
+ * Messages are handled without any ordering guarantee. At most `maxConcurrency` handlers run at the same time,
+ * above that the Pulsar listener thread waits for a running handler to finish.
+ */
+public class VirtualThreadDispatcher implements MessageDispatcher {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public VirtualThreadDispatcher(String threadNamePrefix, int maxConcurrency) {
+        this.executor = VirtualThreads.newExecutor(threadNamePrefix);
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void dispatch(Message<?> message, Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a free handler.", e);
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.majusko.pulsar.dedup;
+
+import io.github.majusko.pulsar.constant.DeduplicationMode;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.impl.BatchMessageIdImpl;
+import org.apache.pulsar.client.impl.MessageIdImpl;
+import org.apache.pulsar.client.impl.TopicMessageIdImpl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers recently handled messages, so a redelivered message can be acknowledged without running the handler again.
+ * Messages are identified by a 64-bit hash of their message id, key or producer sequence id
+ * (see {@link DeduplicationMode}) kept in a bounded, time expiring {@link IdempotencyStore}. Two different messages sharing the hash are extremely unlikely,
+ * but would be reported as a duplicate.
+ *
+ * A message is remembered once it was handled successfully, failed messages are handled again on redelivery.
+ */
+public class DeduplicationCache implements AutoCloseable {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final DeduplicationMode mode;
+    private final IdempotencyStore handled;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public DeduplicationCache(DeduplicationMode mode, int maxEntries, long ttlMs) {
+        this(mode, new MemoryIdempotencyStore(maxEntries, ttlMs));
+    }
+
+    public DeduplicationCache(DeduplicationMode mode, IdempotencyStore handled) {
+        this.mode = mode;
+        this.handled = handled;
+    }
+
+    /**
+     * Whether the message was already handled within the time to live.
+     */
+    public boolean isDuplicate(Message<?> message) {
+        final long hash = hash(message);
+
+        if (hash == 0) {
+            return false;
+        }
+
+        final boolean duplicate = handled.contains(hash);
+
+        if (duplicate) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+
+        return duplicate;
+    }
+
+    /**
+     * Remembers the message as handled.
+     */
+    public void handled(Message<?> message) {
+        final long hash = hash(message);
+
+        if (hash == 0) {
+            return;
+        }
+
+        handled.add(hash);
+    }
+
+    /**
+     * Number of duplicates acknowledged without running the handler.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of messages that were not handled before.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of remembered messages, including expired ones not removed yet.
+     */
+    public int getSize() {
+        return handled.size();
+    }
+
+    public DeduplicationMode getMode() {
+        return mode;
+    }
+
+    public IdempotencyStore getStore() {
+        return handled;
+    }
+
+    @Override
+    public void close() {
+        handled.close();
+    }
+
+    /**
+     * Hash of the message identity, 0 when the message can't be identified.
+     */
+    private long hash(Message<?> message) {
+        if (mode == DeduplicationMode.KEY) {
+            return message.hasKey() ? hash(message.getKey()) : 0;
+        }
+        if (mode == DeduplicationMode.SEQUENCE_ID) {
+            final String producerName = message.getProducerName();
+
+            return producerName != null ? mix(hash(producerName) ^ message.getSequenceId()) : 0;
+        }
+
+        return hash(message.getMessageId());
+    }
+
+    private static long hash(MessageId messageId) {
+        final MessageId id = messageId instanceof TopicMessageIdImpl
+            ? ((TopicMessageIdImpl) messageId).getInnerMessageId()
+            : messageId;
+
+        if (id instanceof MessageIdImpl) {
+            final MessageIdImpl impl = (MessageIdImpl) id;
+            final int batchIndex = impl instanceof BatchMessageIdImpl ? ((BatchMessageIdImpl) impl).getBatchIndex() : -1;
+
+            return mix(mix(mix(impl.getLedgerId()) ^ impl.getEntryId()) ^ ((long) impl.getPartitionIndex() << 32 | batchIndex & 0xffffffffL));
+        }
+
+        long hash = FNV_OFFSET_BASIS;
+
+        for (byte b : id.toByteArray()) {
+            hash = (hash ^ b) * FNV_PRIME;
+        }
+
+        return mix(hash);
+    }
+
+    private static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * FNV_PRIME;
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreads the bits so the low bits pick evenly distributed slots.
+     */
+    private static long mix(long value) {
+        long z = value;
+
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.majusko.pulsar.dedup;
+
+/**
+ * Set of `long` values forgetting every value `ttlMs` after it was added, holding at most `maxEntries` values.
+ * Open addressing over two primitive arrays with linear probing, so neither the values nor the entries are boxed.
+ * The value `0` marks an empty slot and is stored as `1`.
+ *
+ * Expired values stay in the table until it fills up, then the table is rebuilt without them. When every value is
+ * still alive, the older ones are dropped. Not thread safe.
+ */
+class ExpiringLongSet {
+
+    private final int maxEntries;
+    private final long ttlMs;
+
+    private long[] values;
+    private long[] expiresAt;
+    private int mask;
+    private int size;
+
+    ExpiringLongSet(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+
+        final int capacity = Integer.highestOneBit(Math.max(maxEntries, 2) * 2 - 1) << 1;
+
+        this.values = new long[capacity];
+        this.expiresAt = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    boolean contains(long value, long now) {
+        final long key = value == 0 ? 1 : value;
+
+        for (int i = indexOf(key); values[i] != 0; i = (i + 1) & mask) {
+            if (values[i] == key) {
+                return expiresAt[i] > now;
+            }
+        }
+
+        return false;
+    }
+
+    void add(long value, long now) {
+        final long key = value == 0 ? 1 : value;
+        int i = indexOf(key);
+
+        for (; values[i] != 0; i = (i + 1) & mask) {
+            if (values[i] == key) {
+                expiresAt[i] = now + ttlMs;
+                return;
+            }
+        }
+
+        if (size >= maxEntries) {
+            evict(now);
+            add(key, now);
+            return;
+        }
+
+        values[i] = key;
+        expiresAt[i] = now + ttlMs;
+        size++;
+    }
+
+    /**
+     * Number of values in the table, including expired values not removed yet.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Frees at least an eighth of the table. Drops the expired values first, when that is not enough, the values added
+     * in the oldest quarter of the time window, then half and three quarters. When everything was added at once,
+     * starts over with an empty table.
+     */
+    private void evict(long now) {
+        final int target = maxEntries - Math.max(maxEntries / 8, 1);
+
+        for (int quarter = 0; quarter < 4; quarter++) {
+            rebuild(now + ttlMs * quarter / 4);
+
+            if (size <= target) {
+                return;
+            }
+        }
+
+        rebuild(Long.MAX_VALUE);
+    }
+
+    private void rebuild(long expiringBefore) {
+        final long[] oldValues = values;
+        final long[] oldExpiresAt = expiresAt;
+
+        values = new long[oldValues.length];
+        expiresAt = new long[oldExpiresAt.length];
+        size = 0;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0 && oldExpiresAt[i] > expiringBefore) {
+                int j = indexOf(oldValues[i]);
+
+                while (values[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+
+                values[j] = oldValues[i];
+                expiresAt[j] = oldExpiresAt[i];
+                size++;
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.majusko.pulsar.dedup;
+
+/**
+ * Remembers 64-bit hashes of handled messages for {@link DeduplicationCache}. Implementations are bounded and forget
+ * hashes after their time to live. `0` is never passed in.
+ */
+public interface IdempotencyStore extends AutoCloseable {
+
+    boolean contains(long hash);
+
+    void add(long hash);
+
+    /**
+     * Number of remembered hashes, may include expired ones not removed yet.
+     */
+    int size();
+
+    @Override
+    void close();
+}
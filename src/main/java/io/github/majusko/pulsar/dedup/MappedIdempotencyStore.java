@@ -0,0 +1,237 @@
+package io.github.majusko.pulsar.dedup;
+
+import io.github.majusko.pulsar.error.exception.ClientInitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the hashes in a memory-mapped file, so handled messages are still recognized after the application restarts,
+ * which is when redelivery storms usually happen. Lookups are a few memory reads, there is no serialization and
+ * no external service.
+ *
+ * The file holds a header and a ring of fixed-size segments, each an open-addressing table of `long` hashes filled up
+ * with linear probing and never updated in place. New hashes go to the active segment. Once it is half full or older
+ * than `ttlMs / (segments - 1)`, the oldest segment is wiped and becomes the active one, so every hash is remembered
+ * at least `ttlMs` unless more than `maxEntries` messages arrive within that time.
+ *
+ * Writes land in the page cache right away and survive a crash of the process, they are forced to the disk on close.
+ * The file is locked while the store is open, so two processes can't share it. A single mapping is limited to 2GB,
+ * which is a bit over 50 million entries.
+ */
+public class MappedIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedIdempotencyStore.class);
+
+    private static final long MAGIC = 0x504c535244454455L;
+    private static final int VERSION = 1;
+    private static final int SEGMENTS = 4;
+    private static final int HEADER_SIZE = 32;
+    private static final int SEGMENT_HEADER_SIZE = 16;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int SEGMENTS_OFFSET = 12;
+    private static final int SLOTS_OFFSET = 16;
+    private static final int ACTIVE_OFFSET = 20;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final int mask;
+    private final int maxPerSegment;
+    private final long rotationPeriodMs;
+    private final long tablesOffset;
+
+    private int active;
+
+    /**
+     * @throws ClientInitException when the store would be bigger than 2GB or another process has the file open
+     */
+    public MappedIdempotencyStore(Path file, int maxEntries, long ttlMs) throws IOException {
+        this.maxPerSegment = Math.max(maxEntries / (SEGMENTS - 1), 1);
+        this.tablesOffset = HEADER_SIZE + (long) SEGMENTS * SEGMENT_HEADER_SIZE;
+
+        final long tableSlots = Long.highestOneBit((long) maxPerSegment * 2 - 1) << 1;
+        final long size = tablesOffset + SEGMENTS * tableSlots * Long.BYTES;
+
+        if (size > Integer.MAX_VALUE) {
+            throw new ClientInitException("Idempotency store " + file + " of " + maxEntries + " entries needs " + size +
+                " bytes, more than a memory-mapped file can hold. Lower deduplicationMaxEntries.");
+        }
+
+        this.slots = (int) tableSlots;
+        this.mask = this.slots - 1;
+        this.rotationPeriodMs = Math.max(ttlMs / (SEGMENTS - 1), 1);
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            lock(file);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        if (buffer.getLong(MAGIC_OFFSET) == MAGIC && buffer.getInt(VERSION_OFFSET) == VERSION
+            && buffer.getInt(SEGMENTS_OFFSET) == SEGMENTS && buffer.getInt(SLOTS_OFFSET) == slots) {
+            this.active = buffer.getInt(ACTIVE_OFFSET);
+        } else {
+            if (buffer.getLong(MAGIC_OFFSET) != 0) {
+                logger.warn("Idempotency store {} has a different layout, starting with an empty store.", file);
+            }
+            initialize();
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(long hash) {
+        final long now = System.currentTimeMillis();
+
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            if (isAlive(segment, now) && find(segment, hash) >= 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public synchronized void add(long hash) {
+        final long now = System.currentTimeMillis();
+
+        if (contains(hash)) {
+            return;
+        }
+        if (now - getStartedAt(active) >= rotationPeriodMs || getCount(active) >= maxPerSegment) {
+            rotate(now);
+        }
+
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+        while (buffer.getLong(slotOffset(active, slot)) != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        buffer.putLong(slotOffset(active, slot), hash);
+        buffer.putInt(segmentOffset(active) + 8, getCount(active) + 1);
+    }
+
+    @Override
+    public synchronized int size() {
+        final long now = System.currentTimeMillis();
+        int size = 0;
+
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            if (isAlive(segment, now)) {
+                size += getCount(segment);
+            }
+        }
+
+        return size;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close idempotency store.", e);
+        }
+    }
+
+    private void lock(Path file) throws IOException {
+        final FileLock lock;
+
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            throw new ClientInitException("Idempotency store " + file + " is already open in this application.", e);
+        }
+        if (lock == null) {
+            throw new ClientInitException("Idempotency store " + file + " is locked by another process. " +
+                "Give every application its own pulsar.deduplication-store-dir.");
+        }
+    }
+
+    /**
+     * A segment is alive until it would have been wiped by the time based rotation.
+     */
+    private boolean isAlive(int segment, long now) {
+        return getCount(segment) > 0 && now - getStartedAt(segment) < rotationPeriodMs * SEGMENTS;
+    }
+
+    private int find(int segment, long hash) {
+        for (int slot = (int) (hash ^ (hash >>> 32)) & mask; ; slot = (slot + 1) & mask) {
+            final long value = buffer.getLong(slotOffset(segment, slot));
+
+            if (value == hash) {
+                return slot;
+            }
+            if (value == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void rotate(long now) {
+        active = (active + 1) % SEGMENTS;
+        wipe(active, now);
+        buffer.putInt(ACTIVE_OFFSET, active);
+    }
+
+    private void initialize() {
+        final long now = System.currentTimeMillis();
+
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            wipe(segment, now);
+        }
+
+        active = 0;
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(SEGMENTS_OFFSET, SEGMENTS);
+        buffer.putInt(SLOTS_OFFSET, slots);
+        buffer.putInt(ACTIVE_OFFSET, active);
+        buffer.putLong(MAGIC_OFFSET, MAGIC);
+    }
+
+    private void wipe(int segment, long now) {
+        for (int slot = 0; slot < slots; slot++) {
+            buffer.putLong(slotOffset(segment, slot), 0);
+        }
+
+        buffer.putInt(segmentOffset(segment) + 8, 0);
+        buffer.putLong(segmentOffset(segment), now);
+    }
+
+    private long getStartedAt(int segment) {
+        return buffer.getLong(segmentOffset(segment));
+    }
+
+    private int getCount(int segment) {
+        return buffer.getInt(segmentOffset(segment) + 8);
+    }
+
+    private int segmentOffset(int segment) {
+        return HEADER_SIZE + segment * SEGMENT_HEADER_SIZE;
+    }
+
+    private int slotOffset(int segment, int slot) {
+        return (int) (tablesOffset + ((long) segment * slots + slot) * Long.BYTES);
+    }
+}
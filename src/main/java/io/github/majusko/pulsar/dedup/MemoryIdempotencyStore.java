@@ -0,0 +1,38 @@
+package io.github.majusko.pulsar.dedup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the hashes on the heap in primitive arrays. Forgotten on restart.
+ */
+public class MemoryIdempotencyStore implements IdempotencyStore {
+
+    private final ExpiringLongSet hashes;
+
+    public MemoryIdempotencyStore(int maxEntries, long ttlMs) {
+        this.hashes = new ExpiringLongSet(maxEntries, ttlMs);
+    }
+
+    @Override
+    public synchronized boolean contains(long hash) {
+        return hashes.contains(hash, now());
+    }
+
+    @Override
+    public synchronized void add(long hash) {
+        hashes.add(hash, now());
+    }
+
+    @Override
+    public synchronized int size() {
+        return hashes.size();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
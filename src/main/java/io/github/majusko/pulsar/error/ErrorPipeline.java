@@ -0,0 +1,253 @@
+package io.github.majusko.pulsar.error;
+
+import io.github.majusko.pulsar.constant.ErrorOverflowPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue of failed messages delivered to the `onError` subscribers on a thread of its own, so a slow
+ * subscriber never runs on the consumer threads. When the queue is full, the {@link ErrorOverflowPolicy} decides
+ * whether the consumer waits, the oldest failure is dropped, the new one is spilled to the {@link ErrorSpillSink} or
+ * only written to the log.
+ *
+ * Failures are kept in the queue until the first subscriber arrives, the overflow policy applies the same way with or
+ * without subscribers. Failures emitted after shutdown, or left in the queue because nobody subscribed, are spilled
+ * ({@link ErrorOverflowPolicy#BLOCK}, {@link ErrorOverflowPolicy#SPILL}), dropped or logged.
+ *
+ * Messages of consumers with pooled messages are released once the subscribers returned or the failure was spilled,
+ * dropped or logged.
+ */
+public class ErrorPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ErrorPipeline.class);
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final int capacity;
+    private final ErrorOverflowPolicy overflowPolicy;
+    private final ErrorSpillSink spillSink;
+    private final BlockingQueue<FailedMessage> queue;
+    private final List<Consumer<? super FailedMessage>> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor;
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder logged = new LongAdder();
+
+    private volatile boolean closed;
+
+    public ErrorPipeline(int capacity, ErrorOverflowPolicy overflowPolicy, ErrorSpillSink spillSink, ThreadFactory threadFactory) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.spillSink = spillSink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = Executors.newSingleThreadExecutor(threadFactory);
+        this.executor.execute(this::drain);
+    }
+
+    public void emit(FailedMessage failedMessage) {
+        if (closed) {
+            divert(failedMessage);
+            return;
+        }
+        if (queue.offer(failedMessage)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                block(failedMessage);
+                break;
+            case DROP_OLDEST:
+                dropOldest(failedMessage);
+                break;
+            case SPILL:
+                spill(failedMessage);
+                break;
+            default:
+                log(failedMessage);
+        }
+    }
+
+    public Disposable subscribe(Consumer<? super FailedMessage> subscriber) {
+        subscribers.add(subscriber);
+
+        return () -> subscribers.remove(subscriber);
+    }
+
+    /**
+     * Number of failed messages delivered to the subscribers.
+     */
+    public long getEmittedCount() {
+        return emitted.sum();
+    }
+
+    /**
+     * Number of failed messages dropped by {@link ErrorOverflowPolicy#DROP_OLDEST}.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Number of failed messages written to the {@link ErrorSpillSink}.
+     */
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    /**
+     * Number of failed messages only written to the log, by {@link ErrorOverflowPolicy#LOG} or because the spill
+     * sink failed.
+     */
+    public long getLoggedCount() {
+        return logged.sum();
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public ErrorOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public ErrorSpillSink getSpillSink() {
+        return spillSink;
+    }
+
+    /**
+     * Delivers the queued failures to the subscribers and stops the pipeline. Failures emitted afterwards are handled
+     * like the ones left in the queue without subscribers.
+     */
+    public void close(long timeout, TimeUnit unit) throws InterruptedException {
+        closed = true;
+        executor.shutdown();
+
+        if (!executor.awaitTermination(timeout, unit)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void block(FailedMessage failedMessage) {
+        try {
+            while (!queue.offer(failedMessage, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    divert(failedMessage);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            divert(failedMessage);
+        }
+    }
+
+    private void dropOldest(FailedMessage failedMessage) {
+        while (!queue.offer(failedMessage)) {
+            final FailedMessage oldest = queue.poll();
+
+            if (oldest != null) {
+                drop(oldest);
+            }
+        }
+    }
+
+    /**
+     * Handles a failure which can't be queued anymore.
+     */
+    private void divert(FailedMessage failedMessage) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                drop(failedMessage);
+                break;
+            case LOG:
+                log(failedMessage);
+                break;
+            default:
+                spill(failedMessage);
+        }
+    }
+
+    private void drop(FailedMessage failedMessage) {
+        dropped.increment();
+        failedMessage.getMessage().release();
+    }
+
+    private void spill(FailedMessage failedMessage) {
+        try {
+            spillSink.spill(failedMessage);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to spill message {} of consumer {}", failedMessage.getMessage().getMessageId(),
+                failedMessage.getConsumer().getConsumerName(), e);
+            log(failedMessage);
+            return;
+        }
+
+        spilled.increment();
+        failedMessage.getMessage().release();
+    }
+
+    private void log(FailedMessage failedMessage) {
+        logged.increment();
+        logger.error("Error pipeline is full, failed message {} of consumer {}",
+            failedMessage.getMessage().getMessageId(), failedMessage.getConsumer().getConsumerName(),
+            failedMessage.getException());
+        failedMessage.getMessage().release();
+    }
+
+    private void drain() {
+        try {
+            while (!(closed && (queue.isEmpty() || subscribers.isEmpty()))) {
+                if (subscribers.isEmpty()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT_MS));
+                    continue;
+                }
+
+                final FailedMessage failedMessage = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+                if (failedMessage != null) {
+                    deliver(failedMessage);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            FailedMessage failedMessage;
+
+            while ((failedMessage = queue.poll()) != null) {
+                divert(failedMessage);
+            }
+        }
+    }
+
+    private void deliver(FailedMessage failedMessage) {
+        for (Consumer<? super FailedMessage> subscriber : subscribers) {
+            try {
+                subscriber.accept(failedMessage);
+            } catch (RuntimeException e) {
+                logger.warn("Error subscriber failed on message {}", failedMessage.getMessage().getMessageId(), e);
+            }
+        }
+
+        emitted.increment();
+        failedMessage.getMessage().release();
+    }
+}
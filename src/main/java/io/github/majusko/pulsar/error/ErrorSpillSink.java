@@ -0,0 +1,19 @@
+package io.github.majusko.pulsar.error;
+
+import java.io.IOException;
+
+/**
+ * Durable target of the failed messages the error pipeline can't hand over to the `onError` subscribers, used by
+ * {@link io.github.majusko.pulsar.constant.ErrorOverflowPolicy#SPILL}. Declare a bean of this type to spill failures
+ * somewhere else than to {@link FileErrorSpillSink}.
+ *
+ * Called on the consumer threads, the message must not be used after the method returned.
+ */
+public interface ErrorSpillSink extends AutoCloseable {
+
+    void spill(FailedMessage failedMessage) throws IOException;
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.majusko.pulsar.error;
+
+import org.apache.pulsar.client.api.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Appends spilled failures to `failed-messages.log` in the given directory, one line per failure with tab separated
+ * time of the failure, consumer name, topic, message id, key, exception and the payload encoded in Base64, so the
+ * messages can be inspected and published again. The file is created with the first spilled failure.
+ */
+public class FileErrorSpillSink implements ErrorSpillSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileErrorSpillSink.class);
+    private static final String FILE_NAME = "failed-messages.log";
+
+    private final Path file;
+
+    private BufferedWriter writer;
+
+    public FileErrorSpillSink(Path directory) {
+        this.file = directory.resolve(FILE_NAME);
+    }
+
+    @Override
+    public synchronized void spill(FailedMessage failedMessage) throws IOException {
+        if (writer == null) {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            logger.warn("Error pipeline is full, spilling failed messages to {}", file);
+        }
+
+        final Message<?> message = failedMessage.getMessage();
+
+        writer.write(Instant.now() + "\t" + failedMessage.getConsumer().getConsumerName() + "\t" + message.getTopicName() +
+            "\t" + message.getMessageId() + "\t" + (message.hasKey() ? message.getKey() : "") + "\t" +
+            escape(String.valueOf(failedMessage.getException())) + "\t" + Base64.getEncoder().encodeToString(message.getData()));
+        writer.newLine();
+        writer.flush();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close error spill file {}", file, e);
+        }
+
+        writer = null;
+    }
+
+    private static String escape(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -4,6 +4,7 @@ import io.github.majusko.pulsar.PulsarClientContainer;
 import io.github.majusko.pulsar.annotation.PulsarProducer;
 import io.github.majusko.pulsar.collector.ProducerHolder;
 import io.github.majusko.pulsar.error.exception.ProducerInitException;
+import io.github.majusko.pulsar.properties.ProducerProperties;
 import io.github.majusko.pulsar.utils.SchemaUtils;
 import io.github.majusko.pulsar.utils.UrlBuildService;
 import org.apache.pulsar.client.api.Producer;
@@ -17,7 +18,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringValueResolver;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -43,17 +47,15 @@ public class ProducerCollector implements BeanPostProcessor, EmbeddedValueResolv
         final Class<?> beanClass = bean.getClass();
 
         if (beanClass.isAnnotationPresent(PulsarProducer.class) && bean instanceof PulsarProducerFactory) {
+            final Map<String, ProducerOptions> options = ((PulsarProducerFactory) bean).getProducerOptions();
+
             producers.putAll(((PulsarProducerFactory) bean).getTopics().entrySet().stream()
-                    .map($ -> $.getValue().right.map(cluster -> new ProducerHolder(
+                    .map($ -> new ProducerHolder(
                             stringValueResolver.resolveStringValue($.getKey()),
                             $.getValue().left,
                             $.getValue().middle,
-                            cluster)
-                    ).orElseGet(() -> new ProducerHolder(
-                            stringValueResolver.resolveStringValue($.getKey()),
-                            $.getValue().left,
-                            $.getValue().middle)
-                    ))
+                            $.getValue().right.orElse(null),
+                            options.get($.getKey())))
                     .collect(Collectors.toMap(ProducerHolder::getTopic, this::buildProducer)));
         }
 
@@ -72,6 +74,8 @@ public class ProducerCollector implements BeanPostProcessor, EmbeddedValueResolv
                     .newProducer(getSchema(holder))
                     .topic(urlBuildService.buildTopicUrl(holder.getTopic()));
 
+            buildOptions(holder.getOptions(), clientContainer.getProperties(cluster).getProducer(), producerBuilder);
+
             if (clientContainer.getProperties(cluster).isAllowInterceptor()) {
                 producerBuilder.intercept(producerInterceptor);
             }
@@ -82,8 +86,73 @@ public class ProducerCollector implements BeanPostProcessor, EmbeddedValueResolv
         }
     }
 
+    /**
+     * Topic options take precedence over the cluster defaults, settings set by neither keep the client defaults.
+     */
+    private void buildOptions(ProducerOptions options, ProducerProperties defaults, ProducerBuilder<?> producerBuilder) {
+        final ProducerProperties properties = defaults != null
+            ? defaults
+            : new ProducerProperties(true, 0, 0, 0, CompressionType.NONE, 0, false);
+        final boolean batchingEnabled = options.getBatchingEnabled() != null
+            ? options.getBatchingEnabled()
+            : properties.isBatchingEnabled();
+        final long batchingMaxPublishDelayMs = options.getBatchingMaxPublishDelayMs() >= 0
+            ? options.getBatchingMaxPublishDelayMs()
+            : properties.getBatchingMaxPublishDelayMs();
+        final int batchingMaxMessages = options.getBatchingMaxMessages() > 0
+            ? options.getBatchingMaxMessages()
+            : properties.getBatchingMaxMessages();
+        final int batchingMaxBytes = options.getBatchingMaxBytes() > 0
+            ? options.getBatchingMaxBytes()
+            : properties.getBatchingMaxBytes();
+        final int maxPendingMessages = options.getMaxPendingMessages() >= 0
+            ? options.getMaxPendingMessages()
+            : properties.getMaxPendingMessages();
+
+        if (options.isChunkingEnabled()) {
+            producerBuilder.enableBatching(false).enableChunking(true);
+        } else {
+            producerBuilder.enableBatching(batchingEnabled);
+        }
+
+        if (batchingMaxPublishDelayMs > 0) {
+            producerBuilder.batchingMaxPublishDelay(batchingMaxPublishDelayMs, TimeUnit.MILLISECONDS);
+        }
+        if (batchingMaxMessages > 0) {
+            producerBuilder.batchingMaxMessages(batchingMaxMessages);
+        }
+        if (batchingMaxBytes > 0) {
+            producerBuilder.batchingMaxBytes(batchingMaxBytes);
+        }
+        if (maxPendingMessages > 0) {
+            producerBuilder.maxPendingMessages(maxPendingMessages);
+        }
+
+        producerBuilder.compressionType(options.getCompressionType() != null
+            ? options.getCompressionType()
+            : properties.getCompressionType());
+        producerBuilder.blockIfQueueFull(options.getBlockIfQueueFull() != null
+            ? options.getBlockIfQueueFull()
+            : properties.isBlockIfQueueFull());
+    }
+
     private <T> Schema<?> getSchema(ProducerHolder holder) throws RuntimeException {
-        return SchemaUtils.getSchema(holder.getSerialization(), holder.getClazz());
+        return SchemaUtils.getProducerSchema(holder.getSerialization(), holder.getClazz());
+    }
+
+    /**
+     * Sends the messages waiting in the producer queues and closes all producers in parallel.
+     */
+    public CompletableFuture<Void> close() {
+        return CompletableFuture.allOf(producers.values().stream()
+            .map(producer -> closeAsync((Producer<?>) producer))
+            .toArray(CompletableFuture<?>[]::new));
+    }
+
+    private static CompletableFuture<Void> closeAsync(Producer<?> producer) {
+        return producer.flushAsync()
+            .handle((ignore, error) -> producer.closeAsync())
+            .thenCompose(Function.identity());
     }
 
     public Producer getProducer(String topic) {
@@ -11,6 +11,7 @@ import java.util.Optional;
 @PulsarProducer
 public class ProducerFactory implements PulsarProducerFactory {
     private final Map<String, ImmutableTriple<Class<?>, Serialization, Optional<String>>> topics = new HashMap<>();
+    private final Map<String, ProducerOptions> producerOptions = new HashMap<>();
 
     public ProducerFactory addProducer(String topic) {
         return addProducer(topic, byte[].class, Serialization.BYTE);
@@ -36,7 +37,29 @@ public class ProducerFactory implements PulsarProducerFactory {
         return this;
     }
 
+    public ProducerFactory addProducer(String topic, Class<?> clazz, ProducerOptions options) {
+        return addProducer(topic, clazz, Serialization.JSON, options);
+    }
+
+    public ProducerFactory addProducer(String topic, Class<?> clazz, Serialization serialization, ProducerOptions options) {
+        topics.put(topic, new ImmutableTriple<>(clazz, serialization, Optional.empty()));
+        producerOptions.put(topic, options);
+        return this;
+    }
+
+    public ProducerFactory addProducer(String topic, String namespace, Class<?> clazz, Serialization serialization,
+                                       ProducerOptions options) {
+        topics.put(topic, new ImmutableTriple<>(clazz, serialization, Optional.of(namespace)));
+        producerOptions.put(topic, options);
+        return this;
+    }
+
     public Map<String, ImmutableTriple<Class<?>, Serialization, Optional<String>>> getTopics() {
         return topics;
     }
+
+    @Override
+    public Map<String, ProducerOptions> getProducerOptions() {
+        return producerOptions;
+    }
 }
@@ -0,0 +1,168 @@
+package io.github.majusko.pulsar.producer;
+
+import org.apache.pulsar.client.api.CompressionType;
+
+/**
+ * Per-topic producer settings registered with {@link ProducerFactory}. Settings that are not set fall back to
+ * `pulsar.<cluster>.producer.*` and then to the Pulsar client defaults.
+ */
+public class ProducerOptions {
+
+    public static final ProducerOptions DEFAULT = builder().build();
+
+    private final boolean chunkingEnabled;
+    private final Boolean batchingEnabled;
+    private final long batchingMaxPublishDelayMs;
+    private final int batchingMaxMessages;
+    private final int batchingMaxBytes;
+    private final CompressionType compressionType;
+    private final int maxPendingMessages;
+    private final Boolean blockIfQueueFull;
+
+    private ProducerOptions(ProducerOptionsBuilder builder) {
+        this.chunkingEnabled = builder.chunkingEnabled;
+        this.batchingEnabled = builder.batchingEnabled;
+        this.batchingMaxPublishDelayMs = builder.batchingMaxPublishDelayMs;
+        this.batchingMaxMessages = builder.batchingMaxMessages;
+        this.batchingMaxBytes = builder.batchingMaxBytes;
+        this.compressionType = builder.compressionType;
+        this.maxPendingMessages = builder.maxPendingMessages;
+        this.blockIfQueueFull = builder.blockIfQueueFull;
+    }
+
+    public boolean isChunkingEnabled() {
+        return chunkingEnabled;
+    }
+
+    /**
+     * `null` when not set.
+     */
+    public Boolean getBatchingEnabled() {
+        return batchingEnabled;
+    }
+
+    public long getBatchingMaxPublishDelayMs() {
+        return batchingMaxPublishDelayMs;
+    }
+
+    public int getBatchingMaxMessages() {
+        return batchingMaxMessages;
+    }
+
+    public int getBatchingMaxBytes() {
+        return batchingMaxBytes;
+    }
+
+    /**
+     * `null` when not set.
+     */
+    public CompressionType getCompressionType() {
+        return compressionType;
+    }
+
+    public int getMaxPendingMessages() {
+        return maxPendingMessages;
+    }
+
+    /**
+     * `null` when not set.
+     */
+    public Boolean getBlockIfQueueFull() {
+        return blockIfQueueFull;
+    }
+
+    public static ProducerOptionsBuilder builder() {
+        return new ProducerOptionsBuilder();
+    }
+
+    public static class ProducerOptionsBuilder {
+
+        /**
+         * Split payloads larger than the broker's maximum message size into chunks joined again by the consumer.
+         * Chunks have the broker's maximum message size and batching is disabled for chunking producers.
+         */
+        private boolean chunkingEnabled;
+
+        /**
+         * Group messages sent within `batchingMaxPublishDelayMs` into a single entry. Disable for latency sensitive
+         * topics, like commands, where every message should leave immediately.
+         */
+        private Boolean batchingEnabled;
+
+        /**
+         * How long messages wait for a batch to fill up. Longer delays give bigger batches and higher throughput
+         * at the cost of latency. Pulsar default is 1 ms.
+         */
+        private long batchingMaxPublishDelayMs = -1;
+
+        /**
+         * Maximum number of messages in a batch. Pulsar default is 1000.
+         */
+        private int batchingMaxMessages = -1;
+
+        /**
+         * Maximum size of a batch. Pulsar default is 128 KB.
+         */
+        private int batchingMaxBytes = -1;
+
+        /**
+         * Compression of the batches or single messages, for example `ZSTD` or `LZ4`. Pulsar default is `NONE`.
+         */
+        private CompressionType compressionType;
+
+        /**
+         * Maximum number of messages waiting for the broker's acknowledgment. Pulsar default is 0, no limit per
+         * producer, only `pulsar.memory-limit-bytes` applies.
+         */
+        private int maxPendingMessages = -1;
+
+        /**
+         * Whether sending blocks when `maxPendingMessages` is reached, instead of failing. Pulsar default is `false`.
+         */
+        private Boolean blockIfQueueFull;
+
+        public ProducerOptionsBuilder enableChunking(boolean chunkingEnabled) {
+            this.chunkingEnabled = chunkingEnabled;
+            return this;
+        }
+
+        public ProducerOptionsBuilder enableBatching(boolean batchingEnabled) {
+            this.batchingEnabled = batchingEnabled;
+            return this;
+        }
+
+        public ProducerOptionsBuilder batchingMaxPublishDelayMs(long batchingMaxPublishDelayMs) {
+            this.batchingMaxPublishDelayMs = batchingMaxPublishDelayMs;
+            return this;
+        }
+
+        public ProducerOptionsBuilder batchingMaxMessages(int batchingMaxMessages) {
+            this.batchingMaxMessages = batchingMaxMessages;
+            return this;
+        }
+
+        public ProducerOptionsBuilder batchingMaxBytes(int batchingMaxBytes) {
+            this.batchingMaxBytes = batchingMaxBytes;
+            return this;
+        }
+
+        public ProducerOptionsBuilder compressionType(CompressionType compressionType) {
+            this.compressionType = compressionType;
+            return this;
+        }
+
+        public ProducerOptionsBuilder maxPendingMessages(int maxPendingMessages) {
+            this.maxPendingMessages = maxPendingMessages;
+            return this;
+        }
+
+        public ProducerOptionsBuilder blockIfQueueFull(boolean blockIfQueueFull) {
+            this.blockIfQueueFull = blockIfQueueFull;
+            return this;
+        }
+
+        public ProducerOptions build() {
+            return new ProducerOptions(this);
+        }
+    }
+}
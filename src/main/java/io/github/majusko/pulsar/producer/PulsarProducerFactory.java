@@ -3,9 +3,17 @@ package io.github.majusko.pulsar.producer;
 import io.github.majusko.pulsar.constant.Serialization;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 
 public interface PulsarProducerFactory {
     Map<String, ImmutableTriple<Class<?>, Serialization, Optional<String>>> getTopics();
+
+    /**
+     * Producer settings by topic, topics without an entry use {@link ProducerOptions#DEFAULT}.
+     */
+    default Map<String, ProducerOptions> getProducerOptions() {
+        return Collections.emptyMap();
+    }
 }
@@ -9,10 +9,34 @@ public class ConsumerProperties {
     int deadLetterPolicyMaxRedeliverCount = -1;
     int ackTimeoutMs = 0;
     String subscriptionType = "";
+    String ackMode = "";
+    int ackBatchSize = 0;
+    int ackIntervalMs = 0;
+    int ackGroupTimeMs = 0;
+    int receiverQueueSize = 0;
+    int maxTotalReceiverQueueSizeAcrossPartitions = 0;
+    long negativeAckMinDelayMs = 0;
+    long negativeAckMaxDelayMs = 0;
+    double negativeAckMultiplier = 0;
+    String retryDelays = "";
 
-    public ConsumerProperties(int deadLetterPolicyMaxRedeliverCount, int ackTimeoutMs, String subscriptionType) {
+    public ConsumerProperties(int deadLetterPolicyMaxRedeliverCount, int ackTimeoutMs, String subscriptionType,
+                              String ackMode, int ackBatchSize, int ackIntervalMs, int ackGroupTimeMs,
+                              int receiverQueueSize, int maxTotalReceiverQueueSizeAcrossPartitions,
+                              long negativeAckMinDelayMs, long negativeAckMaxDelayMs, double negativeAckMultiplier,
+                              String retryDelays) {
         this.deadLetterPolicyMaxRedeliverCount = deadLetterPolicyMaxRedeliverCount;
         this.ackTimeoutMs = ackTimeoutMs;
         this.subscriptionType = subscriptionType;
+        this.ackMode = ackMode;
+        this.ackBatchSize = ackBatchSize;
+        this.ackIntervalMs = ackIntervalMs;
+        this.ackGroupTimeMs = ackGroupTimeMs;
+        this.receiverQueueSize = receiverQueueSize;
+        this.maxTotalReceiverQueueSizeAcrossPartitions = maxTotalReceiverQueueSizeAcrossPartitions;
+        this.negativeAckMinDelayMs = negativeAckMinDelayMs;
+        this.negativeAckMaxDelayMs = negativeAckMaxDelayMs;
+        this.negativeAckMultiplier = negativeAckMultiplier;
+        this.retryDelays = retryDelays;
     }
-}
\ No newline at end of file
+}
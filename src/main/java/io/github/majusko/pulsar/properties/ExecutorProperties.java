@@ -0,0 +1,22 @@
+package io.github.majusko.pulsar.properties;
+
+import io.github.majusko.pulsar.constant.RejectionPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@Data
+@ConstructorBinding
+public class ExecutorProperties {
+    int threads = 4;
+    int queueCapacity = 1000;
+    RejectionPolicy rejectionPolicy = RejectionPolicy.BLOCK;
+
+    public ExecutorProperties(@DefaultValue("4") int threads,
+                              @DefaultValue("1000") int queueCapacity,
+                              @DefaultValue("BLOCK") RejectionPolicy rejectionPolicy) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.majusko.pulsar.properties;
+
+import lombok.Data;
+import org.apache.pulsar.client.api.CompressionType;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Defaults of all producers of a cluster, topics registered with {@link io.github.majusko.pulsar.producer.ProducerOptions}
+ * override them. Values that are not set keep the Pulsar client defaults.
+ */
+@Data
+@ConstructorBinding
+public class ProducerProperties {
+    boolean batchingEnabled = true;
+    long batchingMaxPublishDelayMs = 0;
+    int batchingMaxMessages = 0;
+    int batchingMaxBytes = 0;
+    CompressionType compressionType = CompressionType.NONE;
+    int maxPendingMessages = 0;
+    boolean blockIfQueueFull = false;
+
+    public ProducerProperties(@DefaultValue("true") boolean batchingEnabled, long batchingMaxPublishDelayMs,
+                              int batchingMaxMessages, int batchingMaxBytes,
+                              @DefaultValue("NONE") CompressionType compressionType, int maxPendingMessages,
+                              boolean blockIfQueueFull) {
+        this.batchingEnabled = batchingEnabled;
+        this.batchingMaxPublishDelayMs = batchingMaxPublishDelayMs;
+        this.batchingMaxMessages = batchingMaxMessages;
+        this.batchingMaxBytes = batchingMaxBytes;
+        this.compressionType = compressionType;
+        this.maxPendingMessages = maxPendingMessages;
+        this.blockIfQueueFull = blockIfQueueFull;
+    }
+}
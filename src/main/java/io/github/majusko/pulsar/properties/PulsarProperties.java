@@ -6,7 +6,9 @@ import org.springframework.boot.context.properties.ConstructorBinding;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.boot.context.properties.bind.DefaultValue;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 @Getter
@@ -43,6 +45,7 @@ public class PulsarProperties {
     private boolean autoStart = true;
     private boolean allowInterceptor = false;
     private String listenerName = null;
+    private Long memoryLimitBytes = 0L;
 
     /**
      * 消费者配置。
@@ -50,6 +53,17 @@ public class PulsarProperties {
     @NestedConfigurationProperty
     private final ConsumerProperties consumer;
 
+    /**
+     * Batching, compression and queue defaults of the producers.
+     */
+    @NestedConfigurationProperty
+    private final ProducerProperties producer;
+
+    /**
+     * Named executors that `@PulsarConsumer(executor = "...")` handlers run on.
+     */
+    private final Map<String, ExecutorProperties> executors;
+
     public PulsarProperties(String serviceUrl,
                             @DefaultValue("10") Integer ioThreads,
                             @DefaultValue("10") Integer listenerThreads,
@@ -78,7 +92,10 @@ public class PulsarProperties {
                             boolean autoStart,
                             boolean allowInterceptor,
                             String listenerName,
-                            ConsumerProperties consumer) {
+                            @DefaultValue("0") Long memoryLimitBytes,
+                            ConsumerProperties consumer,
+                            ProducerProperties producer,
+                            Map<String, ExecutorProperties> executors) {
 
         this.serviceUrl = serviceUrl;
         this.ioThreads = ioThreads;
@@ -110,6 +127,9 @@ public class PulsarProperties {
         this.autoStart = autoStart;
         this.allowInterceptor = allowInterceptor;
         this.listenerName = listenerName;
+        this.memoryLimitBytes = memoryLimitBytes;
         this.consumer = consumer;
+        this.producer = producer;
+        this.executors = executors != null ? executors : new HashMap<>();
     }
 }
\ No newline at end of file
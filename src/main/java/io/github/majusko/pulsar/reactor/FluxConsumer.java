@@ -1,9 +1,24 @@
 package io.github.majusko.pulsar.reactor;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.ParallelFlux;
 
 public interface FluxConsumer<T> {
     Flux<T> asSimpleFlux();
 
     Flux<FluxConsumerHolder> asFlux();
-}
\ No newline at end of file
+
+    /**
+     * Messages split into rails by key. Implementations without rails publish everything on a single rail.
+     */
+    default ParallelFlux<T> asSimpleParallelFlux() {
+        return asSimpleFlux().parallel(1);
+    }
+
+    /**
+     * Messages split into rails by key. Implementations without rails publish everything on a single rail.
+     */
+    default ParallelFlux<FluxConsumerHolder> asParallelFlux() {
+        return asFlux().parallel(1);
+    }
+}
@@ -1,18 +1,37 @@
 package io.github.majusko.pulsar.reactor;
 
 import io.github.majusko.pulsar.PulsarClientContainer;
+import io.github.majusko.pulsar.constant.SubscribeFailurePolicy;
+import io.github.majusko.pulsar.consumer.ConsumerSubscriber;
+import io.github.majusko.pulsar.consumer.FlowControlPolicy;
+import io.github.majusko.pulsar.consumer.FlowController;
+import io.github.majusko.pulsar.consumer.KeyOrderedDispatcher;
 import io.github.majusko.pulsar.error.exception.ClientInitException;
 import io.github.majusko.pulsar.properties.ConsumerProperties;
 import io.github.majusko.pulsar.properties.PulsarProperties;
+import io.github.majusko.pulsar.utils.MessageUtils;
 import io.github.majusko.pulsar.utils.SchemaUtils;
 import io.github.majusko.pulsar.utils.UrlBuildService;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.pulsar.client.api.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
+import javax.annotation.PostConstruct;
+
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class FluxConsumerFactory {
@@ -20,7 +39,18 @@ public class FluxConsumerFactory {
     private final ConsumerInterceptor consumerInterceptor;
     private final PulsarClientContainer clientContainer;
 
-    private List<Consumer> consumers = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreadFactory());
+    private final Map<String, FlowController> flowControllers = new ConcurrentHashMap<>();
+
+    @Value("${pulsar.subscribe-timeout-ms:60000}")
+    private long subscribeTimeoutMs;
+
+    @Value("${pulsar.subscribe-failure-policy:FAIL_FAST}")
+    private SubscribeFailurePolicy subscribeFailurePolicy;
+
+    private List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private ConsumerSubscriber subscriber;
+    private volatile boolean draining;
 
     public FluxConsumerFactory(PulsarClientContainer clientContainer, UrlBuildService urlBuildService, ConsumerInterceptor consumerInterceptor) {
         this.clientContainer = clientContainer;
@@ -28,8 +58,56 @@ public class FluxConsumerFactory {
         this.consumerInterceptor = consumerInterceptor;
     }
 
+    @PostConstruct
+    public void initSubscriber() {
+        subscriber = new ConsumerSubscriber(subscribeFailurePolicy, subscribeTimeoutMs, scheduler);
+    }
+
+    /**
+     * Subscribes the consumer and waits until it is subscribed, at most `pulsar.subscribe-timeout-ms`.
+     * With the `RETRY_IN_BACKGROUND` failure policy the consumer is returned after the timeout and keeps
+     * subscribing in background.
+     */
     public <T> FluxConsumer<T> newConsumer(PulsarFluxConsumer<T> fluxConsumer) throws ClientInitException, PulsarClientException {
+        final CompletableFuture<Consumer<?>> subscription = subscribe(fluxConsumer);
+
+        try {
+            subscription.get(subscriber.getTimeoutMs(), TimeUnit.MILLISECONDS);
+            return fluxConsumer;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PulsarClientException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof PulsarClientException
+                ? (PulsarClientException) e.getCause()
+                : new PulsarClientException(e.getCause());
+        } catch (TimeoutException e) {
+            if (subscriber.getFailurePolicy() == SubscribeFailurePolicy.RETRY_IN_BACKGROUND) {
+                return fluxConsumer;
+            }
+
+            subscription.thenAccept(consumer -> {
+                consumers.remove(consumer);
+                consumer.closeAsync();
+            });
+            throw new PulsarClientException.TimeoutException("Flux consumer " + fluxConsumer.getConsumerName() +
+                " didn't subscribe within " + subscriber.getTimeoutMs() + " ms.");
+        }
+    }
+
+    /**
+     * Starts subscribing the consumer without waiting, so several flux consumers can subscribe in parallel.
+     * Invalid configuration is still reported right away.
+     */
+    public <T> CompletableFuture<FluxConsumer<T>> newConsumerAsync(PulsarFluxConsumer<T> fluxConsumer) throws ClientInitException {
+        return subscribe(fluxConsumer).thenApply(consumer -> fluxConsumer);
+    }
+
+    private <T> CompletableFuture<Consumer<?>> subscribe(PulsarFluxConsumer<T> fluxConsumer) throws ClientInitException {
         final SubscriptionType subscriptionType = urlBuildService.getSubscriptionType(fluxConsumer.getSubscriptionType());
+        final FlowController flowController = fluxConsumer.getFlowControlPolicy() != FlowControlPolicy.DISABLED
+            ? new FlowController(fluxConsumer.getFlowControlPolicy(), null, scheduler)
+            : null;
         String cluster = StringUtils.isNotBlank(fluxConsumer.getCluster()) ? fluxConsumer.getCluster() : PulsarClientContainer.DEFAULT_CLUSTER;
         final ConsumerBuilder<?> consumerBuilder = clientContainer.getClient(cluster)
             .newConsumer(SchemaUtils.getSchema(fluxConsumer.getSerialization(), fluxConsumer.getMessageClass()))
@@ -39,15 +117,40 @@ public class FluxConsumerFactory {
             .subscriptionInitialPosition(fluxConsumer.getInitialPosition())
             .subscriptionType(subscriptionType)
             .messageListener((consumer, msg) -> {
+                if (draining) {
+                    return;
+                }
+
+                final int rail = KeyOrderedDispatcher.laneOf(msg, fluxConsumer.getConcurrency());
+                FluxConsumerHolder holder = null;
+
                 try {
                     if(fluxConsumer.isSimple()) {
-                        fluxConsumer.simpleEmit((T) msg.getValue());
-                        consumer.acknowledge(msg);
+                        final Object value = fluxConsumer.getMessageClass() == ByteBuffer.class
+                            ? MessageUtils.getPayload(msg)
+                            : msg.getValue();
+
+                        if (fluxConsumer.simpleEmit(rail, (T) value).isFailure()) {
+                            consumer.negativeAcknowledge(msg);
+                        } else {
+                            consumer.acknowledge(msg);
+                        }
                     } else {
-                        fluxConsumer.emit(new FluxConsumerHolder(consumer, msg));
+                        holder = new FluxConsumerHolder(consumer, msg, flowController);
+
+                        if (flowController != null) {
+                            flowController.acquire(consumer, 1);
+                        }
+                        if (fluxConsumer.emit(rail, holder).isFailure()) {
+                            holder.negativeAcknowledge();
+                        }
                     }
                 } catch (Exception e) {
-                    consumer.negativeAcknowledge(msg);
+                    if (holder != null) {
+                        holder.negativeAcknowledge();
+                    } else {
+                        consumer.negativeAcknowledge(msg);
+                    }
 
                     if(fluxConsumer.isSimple()) {
                         fluxConsumer.simpleEmitError(e);
@@ -67,13 +170,70 @@ public class FluxConsumerFactory {
         }
 
         urlBuildService.buildDeadLetterPolicy(fluxConsumer.getMaxRedeliverCount(), fluxConsumer.getDeadLetterTopic(), consumerBuilder);
+        urlBuildService.buildNegativeAckRedeliveryBackoff(fluxConsumer.getNegativeAckRedeliveryBackoff(), consumerBuilder);
+        urlBuildService.buildAcknowledgmentGroupTime(-1, consumerBuilder);
+        urlBuildService.buildReceiverQueue(fluxConsumer.getReceiverQueueSize(),
+            fluxConsumer.getMaxTotalReceiverQueueSizeAcrossPartitions(), consumerBuilder);
+        urlBuildService.buildChunkedMessages(fluxConsumer.getMaxPendingChunkedMessage(),
+            fluxConsumer.isAutoAckOldestChunkedMessageOnQueueFull(), fluxConsumer.getExpireTimeOfIncompleteChunkedMessageMs(),
+            consumerBuilder);
 
-        consumers.add(consumerBuilder.subscribe());
+        if (flowController != null) {
+            flowControllers.put(fluxConsumer.getConsumerName(), flowController);
+        }
 
-        return fluxConsumer;
+        return subscriber.subscribe(fluxConsumer.getConsumerName(), consumerBuilder).thenApply(consumer -> {
+            consumers.add(consumer);
+            return consumer;
+        });
+    }
+
+    /**
+     * Stops emitting new messages into the fluxes and pauses the consumers. Messages received afterwards are left
+     * unacknowledged and get redelivered once the consumer is closed.
+     */
+    public void pause() {
+        draining = true;
+        flowControllers.values().forEach(FlowController::close);
+        consumers.forEach(consumer -> consumer.pause());
+    }
+
+    /**
+     * Number of messages emitted into the fluxes and not acknowledged through {@link FluxConsumerHolder} yet,
+     * across all flux consumers with a flow control policy.
+     */
+    public int getInFlight() {
+        return flowControllers.values().stream().mapToInt(FlowController::getInFlight).sum();
+    }
+
+    public CompletableFuture<Void> close() {
+        scheduler.shutdown();
+
+        return CompletableFuture.allOf(consumers.stream().map(consumer -> consumer.closeAsync()).toArray(CompletableFuture<?>[]::new));
     }
 
     public List<Consumer> getConsumers() {
         return consumers;
     }
+
+    /**
+     * Time every flux consumer took to subscribe in milliseconds, by consumer name.
+     */
+    public Map<String, Long> getSubscribeLatencies() {
+        return subscriber.getLatencies();
+    }
+
+    /**
+     * Flow controllers of the flux consumers with a flow control policy by consumer name, exposing whether the consumer
+     * is paused, latency from emission to acknowledgment, error rate and pause statistics for metrics.
+     */
+    public Map<String, FlowController> getFlowControllers() {
+        return flowControllers;
+    }
+
+    private static ThreadFactory schedulerThreadFactory() {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pulsar-flux-scheduler-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
 }
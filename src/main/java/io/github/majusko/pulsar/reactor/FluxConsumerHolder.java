@@ -1,16 +1,29 @@
 package io.github.majusko.pulsar.reactor;
 
+import io.github.majusko.pulsar.consumer.FlowController;
 import org.apache.pulsar.client.api.Consumer;
 import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.PulsarClientException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class FluxConsumerHolder {
 
     private final Consumer<?> consumer;
     private final Message<?> message;
+    private final FlowController flowController;
+    private final long emittedAt;
+    private final AtomicBoolean completed = new AtomicBoolean();
 
     public FluxConsumerHolder(Consumer<?> consumer, Message<?> message) {
+        this(consumer, message, null);
+    }
+
+    FluxConsumerHolder(Consumer<?> consumer, Message<?> message, FlowController flowController) {
         this.consumer = consumer;
         this.message = message;
+        this.flowController = flowController;
+        this.emittedAt = System.nanoTime();
     }
 
     public Consumer<?> getConsumer() {
@@ -20,4 +33,28 @@ public class FluxConsumerHolder {
     public Message<?> getMessage() {
         return message;
     }
+
+    /**
+     * Acknowledges the message and hands it back to the flow control of the consumer, which measures the latency
+     * from the emission into the flux until now.
+     */
+    public void acknowledge() throws PulsarClientException {
+        complete(false);
+        consumer.acknowledge(message);
+    }
+
+    /**
+     * Negatively acknowledges the message and counts it as an error in the flow control of the consumer.
+     */
+    public void negativeAcknowledge() {
+        complete(true);
+        consumer.negativeAcknowledge(message);
+    }
+
+    private void complete(boolean failed) {
+        if (flowController != null && completed.compareAndSet(false, true)) {
+            flowController.record(1, message.size(), System.nanoTime() - emittedAt, failed);
+            flowController.release(consumer, 1);
+        }
+    }
 }
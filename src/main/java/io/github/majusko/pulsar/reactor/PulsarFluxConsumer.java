@@ -2,18 +2,32 @@ package io.github.majusko.pulsar.reactor;
 
 import com.google.common.base.Strings;
 import io.github.majusko.pulsar.constant.Serialization;
+import io.github.majusko.pulsar.consumer.FlowControlPolicy;
 import io.github.majusko.pulsar.error.exception.ClientInitException;
+import io.github.majusko.pulsar.utils.VirtualThreads;
+import org.apache.pulsar.client.api.RedeliveryBackoff;
 import org.apache.pulsar.client.api.SubscriptionInitialPosition;
 import org.apache.pulsar.client.api.SubscriptionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.ParallelFlux;
 import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.concurrent.Queues;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class PulsarFluxConsumer<T> implements FluxConsumer<T> {
 
-    private final Sinks.Many<T> simpleSink;
+    private static final Logger logger = LoggerFactory.getLogger(PulsarFluxConsumer.class);
+
+    private final List<Sinks.Many<T>> simpleSinks;
 
-    private final Sinks.Many<FluxConsumerHolder> robustSink;
+    private final List<Sinks.Many<FluxConsumerHolder>> robustSinks;
 
     private final String topic;
 
@@ -39,6 +53,24 @@ public class PulsarFluxConsumer<T> implements FluxConsumer<T> {
 
     private final SubscriptionInitialPosition initialPosition;
 
+    private final int concurrency;
+
+    private final Scheduler scheduler;
+
+    private final int receiverQueueSize;
+
+    private final int maxTotalReceiverQueueSizeAcrossPartitions;
+
+    private final FlowControlPolicy flowControlPolicy;
+
+    private final RedeliveryBackoff negativeAckRedeliveryBackoff;
+
+    private final int maxPendingChunkedMessage;
+
+    private final boolean autoAckOldestChunkedMessageOnQueueFull;
+
+    private final long expireTimeOfIncompleteChunkedMessageMs;
+
     private PulsarFluxConsumer(
         String topic,
         String cluster,
@@ -52,10 +84,23 @@ public class PulsarFluxConsumer<T> implements FluxConsumer<T> {
         boolean simple,
         SubscriptionInitialPosition initialPosition,
         int backPressureBufferSize,
-        String namespace
+        String namespace,
+        int concurrency,
+        boolean virtualThreads,
+        int receiverQueueSize,
+        int maxTotalReceiverQueueSizeAcrossPartitions,
+        FlowControlPolicy flowControlPolicy,
+        RedeliveryBackoff negativeAckRedeliveryBackoff,
+        int maxPendingChunkedMessage,
+        boolean autoAckOldestChunkedMessageOnQueueFull,
+        long expireTimeOfIncompleteChunkedMessageMs
        ) {
-        this.simpleSink = Sinks.many().multicast().onBackpressureBuffer(backPressureBufferSize, false);
-        this.robustSink = Sinks.many().multicast().onBackpressureBuffer(backPressureBufferSize, false);
+        this.simpleSinks = new ArrayList<>(concurrency);
+        this.robustSinks = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            this.simpleSinks.add(Sinks.many().multicast().onBackpressureBuffer(backPressureBufferSize, false));
+            this.robustSinks.add(Sinks.many().multicast().onBackpressureBuffer(backPressureBufferSize, false));
+        }
         this.topic = topic;
         this.cluster = cluster;
         this.messageClass = messageClass;
@@ -68,6 +113,24 @@ public class PulsarFluxConsumer<T> implements FluxConsumer<T> {
         this.simple = simple;
         this.initialPosition = initialPosition;
         this.namespace = namespace;
+        this.concurrency = concurrency;
+        this.scheduler = virtualThreads ? virtualThreadScheduler(consumerName) : null;
+        this.receiverQueueSize = receiverQueueSize;
+        this.maxTotalReceiverQueueSizeAcrossPartitions = maxTotalReceiverQueueSizeAcrossPartitions;
+        this.flowControlPolicy = flowControlPolicy;
+        this.negativeAckRedeliveryBackoff = negativeAckRedeliveryBackoff;
+        this.maxPendingChunkedMessage = maxPendingChunkedMessage;
+        this.autoAckOldestChunkedMessageOnQueueFull = autoAckOldestChunkedMessageOnQueueFull;
+        this.expireTimeOfIncompleteChunkedMessageMs = expireTimeOfIncompleteChunkedMessageMs;
+    }
+
+    private static Scheduler virtualThreadScheduler(String consumerName) {
+        if (!VirtualThreads.isSupported()) {
+            logger.warn("Virtual threads require Java 21 or newer, flux consumer {} falls back to platform threads.", consumerName);
+            return null;
+        }
+
+        return Schedulers.fromExecutorService(VirtualThreads.newExecutor("pulsar-virtual-" + consumerName + "-"), consumerName);
     }
 
     public String getTopic() {
@@ -118,28 +181,125 @@ public class PulsarFluxConsumer<T> implements FluxConsumer<T> {
         return initialPosition;
     }
 
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getReceiverQueueSize() {
+        return receiverQueueSize;
+    }
+
+    public int getMaxTotalReceiverQueueSizeAcrossPartitions() {
+        return maxTotalReceiverQueueSizeAcrossPartitions;
+    }
+
+    public FlowControlPolicy getFlowControlPolicy() {
+        return flowControlPolicy;
+    }
+
+    public RedeliveryBackoff getNegativeAckRedeliveryBackoff() {
+        return negativeAckRedeliveryBackoff;
+    }
+
+    public int getMaxPendingChunkedMessage() {
+        return maxPendingChunkedMessage;
+    }
+
+    public boolean isAutoAckOldestChunkedMessageOnQueueFull() {
+        return autoAckOldestChunkedMessageOnQueueFull;
+    }
+
+    public long getExpireTimeOfIncompleteChunkedMessageMs() {
+        return expireTimeOfIncompleteChunkedMessageMs;
+    }
+
     public Sinks.EmitResult simpleEmit(T msg) {
-        return simpleSink.tryEmitNext(msg);
+        return simpleEmit(0, msg);
+    }
+
+    public Sinks.EmitResult simpleEmit(int rail, T msg) {
+        return simpleSinks.get(rail).tryEmitNext(msg);
     }
 
+    /**
+     * Errors every rail, so subscribers of each rail see the failure.
+     */
     public Sinks.EmitResult simpleEmitError(Throwable error) {
-        return simpleSink.tryEmitError(error);
+        return emitErrorToAll(simpleSinks, error);
+    }
+
+    public Sinks.EmitResult simpleEmitError(int rail, Throwable error) {
+        return simpleSinks.get(rail).tryEmitError(error);
     }
 
     public Flux<T> asSimpleFlux() {
-        return simpleSink.asFlux();
+        return publishOnScheduler(merge(simpleSinks));
     }
 
     public Flux<FluxConsumerHolder> asFlux() {
-        return robustSink.asFlux();
+        return publishOnScheduler(merge(robustSinks));
+    }
+
+    public ParallelFlux<T> asSimpleParallelFlux() {
+        return runOnScheduler(parallel(simpleSinks));
+    }
+
+    public ParallelFlux<FluxConsumerHolder> asParallelFlux() {
+        return runOnScheduler(parallel(robustSinks));
+    }
+
+    private static <V> Flux<V> merge(List<Sinks.Many<V>> sinks) {
+        if (sinks.size() == 1) {
+            return sinks.get(0).asFlux();
+        }
+
+        return Flux.merge(sinks.stream().map(Sinks.Many::asFlux).collect(Collectors.toList()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> ParallelFlux<V> parallel(List<Sinks.Many<V>> sinks) {
+        return ParallelFlux.from(sinks.stream().map(Sinks.Many::asFlux).toArray(Flux[]::new));
+    }
+
+    private <V> Flux<V> publishOnScheduler(Flux<V> flux) {
+        return scheduler == null ? flux : flux.publishOn(scheduler);
+    }
+
+    private <V> ParallelFlux<V> runOnScheduler(ParallelFlux<V> flux) {
+        return scheduler == null ? flux : flux.runOn(scheduler);
     }
 
     public Sinks.EmitResult emit(FluxConsumerHolder msg) {
-        return robustSink.tryEmitNext(msg);
+        return emit(0, msg);
+    }
+
+    public Sinks.EmitResult emit(int rail, FluxConsumerHolder msg) {
+        return robustSinks.get(rail).tryEmitNext(msg);
     }
 
+    /**
+     * Errors every rail, so subscribers of each rail see the failure.
+     */
     public Sinks.EmitResult emitError(Throwable error) {
-        return robustSink.tryEmitError(error);
+        return emitErrorToAll(robustSinks, error);
+    }
+
+    public Sinks.EmitResult emitError(int rail, Throwable error) {
+        return robustSinks.get(rail).tryEmitError(error);
+    }
+
+    private static <V> Sinks.EmitResult emitErrorToAll(List<Sinks.Many<V>> sinks, Throwable error) {
+        Sinks.EmitResult result = Sinks.EmitResult.OK;
+
+        for (Sinks.Many<V> sink : sinks) {
+            final Sinks.EmitResult railResult = sink.tryEmitError(error);
+
+            if (railResult.isFailure() && result.isSuccess()) {
+                result = railResult;
+            }
+        }
+
+        return result;
     }
 
     public static FluxConsumerBuilder builder() {
@@ -218,6 +378,67 @@ public class PulsarFluxConsumer<T> implements FluxConsumer<T> {
          */
         private int backPressureBufferSize = Queues.SMALL_BUFFER_SIZE;
 
+        /**
+         * (Optional) Number of rails of {@link #asParallelFlux()} and {@link #asSimpleParallelFlux()}.
+         * Messages are assigned to rails by the hash of their ordering key (or message key), so combined with
+         * `runOn` messages with the same key are still processed in order while different keys run in parallel.
+         * Messages without a key share one rail. By default, there is a single rail.
+         */
+        private int concurrency = 1;
+
+        /**
+         * (Optional) Deliver messages to subscribers on virtual threads (Java 21+) instead of the Pulsar listener
+         * threads, so blocking subscribers don't hold platform threads. Every rail of {@link #asParallelFlux()}
+         * runs on its own virtual thread, so combine with `concurrency` to process messages in parallel.
+         * On older Java versions a warning is logged and the Pulsar listener threads are used.
+         */
+        private boolean virtualThreads = false;
+
+        /**
+         * (Optional) Number of messages the consumer prefetches into its receiver queue.
+         * By default, 1000 or the value from `application.properties`.
+         */
+        private int receiverQueueSize = -1;
+
+        /**
+         * (Optional) Maximum number of messages prefetched across all partitions of a partitioned topic.
+         * Pulsar default (50000) is used when not set.
+         */
+        private int maxTotalReceiverQueueSizeAcrossPartitions = -1;
+
+        /**
+         * (Optional) Watermarks pausing the consumer while subscribers are slow or failing, and resuming it once they
+         * recovered. Only supported by non-simple consumers, whose messages count as in flight from their emission until
+         * they are acknowledged through {@link FluxConsumerHolder}. By default, flow control is disabled.
+         */
+        private FlowControlPolicy flowControlPolicy = FlowControlPolicy.DISABLED;
+
+        /**
+         * (Optional) Delays the redelivery of negatively acknowledged messages, for example growing exponentially with
+         * `MultiplierRedeliveryBackoff`. By default, the backoff from `application.properties` is used if configured,
+         * otherwise the fixed negative acknowledgment delay.
+         */
+        private RedeliveryBackoff negativeAckRedeliveryBackoff;
+
+        /**
+         * (Optional) Maximum number of chunked messages held in memory while waiting for their remaining chunks.
+         * Pulsar default (10) is used when not set.
+         */
+        private int maxPendingChunkedMessage = -1;
+
+        /**
+         * (Optional) Whether the oldest incomplete chunked message is acknowledged and dropped once
+         * `maxPendingChunkedMessage` is reached, instead of being dropped without acknowledgment and redelivered.
+         * By default, the value is `false`
+         */
+        private boolean autoAckOldestChunkedMessageOnQueueFull = false;
+
+        /**
+         * (Optional) How long the chunks of an incomplete chunked message are kept before they are dropped.
+         * Pulsar default (1 minute) is used when not set.
+         */
+        private long expireTimeOfIncompleteChunkedMessageMs = -1;
+
         public FluxConsumerBuilder setTopic(String topic) {
             this.topic = topic;
             return this;
@@ -282,10 +503,55 @@ public class PulsarFluxConsumer<T> implements FluxConsumer<T> {
             return this;
         }
 
+        public FluxConsumerBuilder setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        public FluxConsumerBuilder setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public FluxConsumerBuilder setReceiverQueueSize(int receiverQueueSize) {
+            this.receiverQueueSize = receiverQueueSize;
+            return this;
+        }
+
+        public FluxConsumerBuilder setMaxTotalReceiverQueueSizeAcrossPartitions(int maxTotalReceiverQueueSizeAcrossPartitions) {
+            this.maxTotalReceiverQueueSizeAcrossPartitions = maxTotalReceiverQueueSizeAcrossPartitions;
+            return this;
+        }
+
+        public FluxConsumerBuilder setFlowControlPolicy(FlowControlPolicy flowControlPolicy) {
+            this.flowControlPolicy = flowControlPolicy;
+            return this;
+        }
+
+        public FluxConsumerBuilder setNegativeAckRedeliveryBackoff(RedeliveryBackoff negativeAckRedeliveryBackoff) {
+            this.negativeAckRedeliveryBackoff = negativeAckRedeliveryBackoff;
+            return this;
+        }
+
+        public FluxConsumerBuilder setMaxPendingChunkedMessage(int maxPendingChunkedMessage) {
+            this.maxPendingChunkedMessage = maxPendingChunkedMessage;
+            return this;
+        }
+
+        public FluxConsumerBuilder setAutoAckOldestChunkedMessageOnQueueFull(boolean autoAckOldestChunkedMessageOnQueueFull) {
+            this.autoAckOldestChunkedMessageOnQueueFull = autoAckOldestChunkedMessageOnQueueFull;
+            return this;
+        }
+
+        public FluxConsumerBuilder setExpireTimeOfIncompleteChunkedMessageMs(long expireTimeOfIncompleteChunkedMessageMs) {
+            this.expireTimeOfIncompleteChunkedMessageMs = expireTimeOfIncompleteChunkedMessageMs;
+            return this;
+        }
+
         public <T> PulsarFluxConsumer<T> build() throws ClientInitException {
             validateBuilder();
 
-            return new PulsarFluxConsumer<>(topic,cluster, messageClass, serialization, subscriptionType, consumerName, subscriptionName, maxRedeliverCount, deadLetterTopic, simple, initialPosition, backPressureBufferSize, namespace);
+            return new PulsarFluxConsumer<>(topic,cluster, messageClass, serialization, subscriptionType, consumerName, subscriptionName, maxRedeliverCount, deadLetterTopic, simple, initialPosition, backPressureBufferSize, namespace, concurrency, virtualThreads, receiverQueueSize, maxTotalReceiverQueueSizeAcrossPartitions, flowControlPolicy, negativeAckRedeliveryBackoff, maxPendingChunkedMessage, autoAckOldestChunkedMessageOnQueueFull, expireTimeOfIncompleteChunkedMessageMs);
         }
 
         private void validateBuilder() throws ClientInitException {
@@ -298,6 +564,15 @@ public class PulsarFluxConsumer<T> implements FluxConsumer<T> {
             if (Strings.isNullOrEmpty(subscriptionName)) {
                 throw new ClientInitException("Subscription name is empty");
             }
+            if (concurrency < 1) {
+                throw new ClientInitException("Concurrency must be at least 1");
+            }
+            if (flowControlPolicy == null) {
+                throw new ClientInitException("Flow control policy is empty");
+            }
+            if (simple && flowControlPolicy != FlowControlPolicy.DISABLED) {
+                throw new ClientInitException("Flow control is not supported by simple flux consumers");
+            }
         }
     }
 }
@@ -0,0 +1,121 @@
+package io.github.majusko.pulsar.schema;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.apache.pulsar.client.api.Schema;
+import org.apache.pulsar.client.api.SchemaSerializationException;
+import org.apache.pulsar.common.schema.SchemaInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * JSON schema encoding and decoding with an {@link ObjectReader} and {@link ObjectWriter} built once per class.
+ * Pulsar's own JSON schema goes through the {@link ObjectMapper}, which looks up the root serializer on every message.
+ * Jackson recycles its internal buffers per thread, so encoding allocates little more than the resulting array.
+ *
+ * When `jackson-module-blackbird` or `jackson-module-afterburner` is on the classpath, it is registered to replace
+ * reflective property access with generated code. The schema info is the one of {@link Schema#JSON(Class)},
+ * so the topic stays compatible with producers and consumers using the stock JSON schema.
+ */
+public class FastJsonSchema<T> implements Schema<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(FastJsonSchema.class);
+
+    private static final String[] ACCELERATOR_MODULES = {
+        "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+        "com.fasterxml.jackson.module.afterburner.AfterburnerModule"
+    };
+
+    private static final ObjectMapper MAPPER = createMapper();
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final SchemaInfo schemaInfo;
+
+    private FastJsonSchema(Class<T> clazz) {
+        this.reader = MAPPER.readerFor(clazz);
+        this.writer = MAPPER.writerFor(clazz);
+        this.schemaInfo = Schema.JSON(clazz).getSchemaInfo();
+    }
+
+    public static <T> FastJsonSchema<T> of(Class<T> clazz) {
+        return new FastJsonSchema<>(clazz);
+    }
+
+    @Override
+    public byte[] encode(T message) {
+        try {
+            return writer.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new SchemaSerializationException(e);
+        }
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        try {
+            return reader.readValue(bytes);
+        } catch (IOException e) {
+            throw new SchemaSerializationException(e);
+        }
+    }
+
+    @Override
+    public T decode(ByteBuffer data, byte[] schemaVersion) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            if (data.hasArray()) {
+                return reader.readValue(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            }
+
+            return reader.readValue(new ByteBufferBackedInputStream(data.duplicate()));
+        } catch (IOException e) {
+            throw new SchemaSerializationException(e);
+        }
+    }
+
+    @Override
+    public SchemaInfo getSchemaInfo() {
+        return schemaInfo;
+    }
+
+    /**
+     * Readers and writers are immutable, the instance can be shared.
+     */
+    @Override
+    public Schema<T> clone() {
+        return this;
+    }
+
+    /**
+     * Same settings as Pulsar's JSON schema: unknown properties are ignored and null values are not written.
+     */
+    private static ObjectMapper createMapper() {
+        final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        for (String module : ACCELERATOR_MODULES) {
+            try {
+                mapper.registerModule((Module) Class.forName(module).getDeclaredConstructor().newInstance());
+                logger.info("Fast JSON schema is accelerated by {}.", module);
+                break;
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                logger.debug("Jackson module {} is not available.", module);
+            }
+        }
+
+        return mapper;
+    }
+}
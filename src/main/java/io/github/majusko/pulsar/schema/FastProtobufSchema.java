@@ -0,0 +1,99 @@
+package io.github.majusko.pulsar.schema;
+
+import com.google.protobuf.GeneratedMessageV3;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Parser;
+import org.apache.pulsar.client.api.Schema;
+import org.apache.pulsar.client.api.SchemaSerializationException;
+import org.apache.pulsar.common.schema.SchemaInfo;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protobuf schema parsing with the {@link Parser} of the generated class, looked up once per class.
+ * Buffers are parsed in place through a `CodedInputStream`, without copying the payload to a `byte[]` first.
+ * The Pulsar client hands the payload buffer to the schema for pooled messages, other messages are parsed
+ * from their `byte[]`.
+ *
+ * Schema info and native schema come from the wrapped Pulsar schema, {@link Schema#PROTOBUF(Class)} or
+ * {@link Schema#PROTOBUF_NATIVE(Class)}, so the topic stays compatible with the stock schemas.
+ */
+public class FastProtobufSchema<T extends GeneratedMessageV3> implements Schema<T> {
+
+    private static final Map<Class<?>, Parser<?>> parsers = new ConcurrentHashMap<>();
+
+    private final Schema<T> schema;
+    private final Parser<T> parser;
+
+    private FastProtobufSchema(Class<T> clazz, Schema<T> schema) {
+        this.schema = schema;
+        this.parser = getParser(clazz);
+    }
+
+    public static <T extends GeneratedMessageV3> FastProtobufSchema<T> of(Class<T> clazz) {
+        return new FastProtobufSchema<>(clazz, Schema.PROTOBUF(clazz));
+    }
+
+    public static <T extends GeneratedMessageV3> FastProtobufSchema<T> ofNative(Class<T> clazz) {
+        return new FastProtobufSchema<>(clazz, Schema.PROTOBUF_NATIVE(clazz));
+    }
+
+    @Override
+    public byte[] encode(T message) {
+        return message.toByteArray();
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        try {
+            return parser.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            throw new SchemaSerializationException(e);
+        }
+    }
+
+    @Override
+    public T decode(ByteBuffer data, byte[] schemaVersion) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            return parser.parseFrom(data.duplicate());
+        } catch (InvalidProtocolBufferException e) {
+            throw new SchemaSerializationException(e);
+        }
+    }
+
+    @Override
+    public SchemaInfo getSchemaInfo() {
+        return schema.getSchemaInfo();
+    }
+
+    @Override
+    public Optional<Object> getNativeSchema() {
+        return schema.getNativeSchema();
+    }
+
+    /**
+     * Parsers of generated classes are immutable, the instance can be shared.
+     */
+    @Override
+    public Schema<T> clone() {
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends GeneratedMessageV3> Parser<T> getParser(Class<T> clazz) {
+        return (Parser<T>) parsers.computeIfAbsent(clazz, key -> {
+            try {
+                return ((GeneratedMessageV3) key.getMethod("getDefaultInstance").invoke(null)).getParserForType();
+            } catch (ReflectiveOperationException e) {
+                throw new SchemaSerializationException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.majusko.pulsar.utils;
+
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.impl.MessageImpl;
+import org.apache.pulsar.client.impl.TopicMessageImpl;
+
+import java.nio.ByteBuffer;
+
+public final class MessageUtils {
+
+    private MessageUtils() {
+    }
+
+    /**
+     * Read-only view of the message payload. Messages received by the Pulsar client share the payload buffer
+     * instead of copying it, other implementations fall back to {@link Message#getData()}.
+     */
+    public static ByteBuffer getPayload(Message<?> message) {
+        final Message<?> unwrapped = message instanceof TopicMessageImpl ? ((TopicMessageImpl<?>) message).getMessage() : message;
+
+        if (unwrapped instanceof MessageImpl) {
+            return ((MessageImpl<?>) unwrapped).getDataBuffer().nioBuffer().asReadOnlyBuffer();
+        }
+
+        return ByteBuffer.wrap(message.getData()).asReadOnlyBuffer();
+    }
+}
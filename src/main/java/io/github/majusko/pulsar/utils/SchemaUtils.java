@@ -3,12 +3,24 @@ package io.github.majusko.pulsar.utils;
 import com.google.protobuf.GeneratedMessageV3;
 import io.github.majusko.pulsar.constant.Serialization;
 import io.github.majusko.pulsar.error.exception.ProducerInitException;
+import io.github.majusko.pulsar.schema.FastJsonSchema;
+import io.github.majusko.pulsar.schema.FastProtobufSchema;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.pulsar.client.api.Schema;
 
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Schemas are cached by serialization and class, building one introspects the class and creates its reader and writer.
+ * Sharing is safe, the Pulsar client clones the schema before attaching topic specific state to it.
+ */
 public class SchemaUtils {
 
+    private static final Map<ImmutablePair<Serialization, Class<?>>, Schema<?>> schemas = new ConcurrentHashMap<>();
+
     private SchemaUtils() {
     }
 
@@ -20,6 +32,9 @@ public class SchemaUtils {
             case AVRO: {
                 return Schema.AVRO(clazz);
             }
+            case FAST_JSON: {
+                return FastJsonSchema.of(clazz);
+            }
             case STRING: {
                 return Schema.STRING;
             }
@@ -31,7 +46,10 @@ public class SchemaUtils {
 
     private static <T extends com.google.protobuf.GeneratedMessageV3> Schema<?> getProtoSchema(Serialization serialization, Class<T> clazz) throws RuntimeException {
         if (serialization == Serialization.PROTOBUF) {
-            return Schema.PROTOBUF(clazz);
+            return FastProtobufSchema.of(clazz);
+        }
+        if (serialization == Serialization.PROTOBUF_NATIVE) {
+            return FastProtobufSchema.ofNative(clazz);
         }
         throw new ProducerInitException("Unknown producer schema.");
     }
@@ -40,6 +58,32 @@ public class SchemaUtils {
         if (clazz == byte[].class) {
             return Schema.BYTES;
         }
+        if (clazz == ByteBuffer.class) {
+            return Schema.BYTEBUFFER;
+        }
+
+        return schemas.computeIfAbsent(new ImmutablePair<>(serialisation, clazz),
+            key -> newSchema(key.getLeft(), key.getRight()));
+    }
+
+    /**
+     * Avro writers serialize behind a lock, so every Avro producer gets its own schema to not contend with the others.
+     */
+    public static Schema<?> getProducerSchema(Serialization serialisation, Class<?> clazz) {
+        if (serialisation == Serialization.AVRO && clazz != byte[].class && clazz != ByteBuffer.class) {
+            return newSchema(serialisation, clazz);
+        }
+
+        return getSchema(serialisation, clazz);
+    }
+
+    private static Schema<?> newSchema(Serialization serialisation, Class<?> clazz) {
+        if (clazz == byte[].class) {
+            return Schema.BYTES;
+        }
+        if (clazz == ByteBuffer.class) {
+            return Schema.BYTEBUFFER;
+        }
 
         if (isProto(serialisation)) {
             return getProtoSchema(serialisation, (Class<? extends GeneratedMessageV3>) clazz);
@@ -49,7 +93,7 @@ public class SchemaUtils {
     }
 
     public static boolean isProto(Serialization serialization) {
-        return serialization == Serialization.PROTOBUF;
+        return serialization == Serialization.PROTOBUF || serialization == Serialization.PROTOBUF_NATIVE;
     }
 
     public static Class<?> getParameterType(Method method) {
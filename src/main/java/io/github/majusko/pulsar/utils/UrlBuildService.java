@@ -2,18 +2,26 @@ package io.github.majusko.pulsar.utils;
 
 import com.google.common.base.Strings;
 import io.github.majusko.pulsar.collector.ConsumerHolder;
+import io.github.majusko.pulsar.constant.AckMode;
 import io.github.majusko.pulsar.error.exception.ClientInitException;
 import io.github.majusko.pulsar.properties.ConsumerProperties;
 import io.github.majusko.pulsar.properties.PulsarProperties;
+import org.apache.pulsar.client.api.BatchReceivePolicy;
 import org.apache.pulsar.client.api.ConsumerBuilder;
 import org.apache.pulsar.client.api.DeadLetterPolicy;
+import org.apache.pulsar.client.api.RedeliveryBackoff;
 import org.apache.pulsar.client.api.SubscriptionType;
+import org.apache.pulsar.client.impl.MultiplierRedeliveryBackoff;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Service;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +36,11 @@ public class UrlBuildService {
     private static final String CONSUMER_NAME_PREFIX = "consumer";
     private static final String SUBSCRIPTION_NAME_PREFIX = "subscription";
     private final static SubscriptionType DEFAULT_SUBSCRIPTION_TYPE = SubscriptionType.Exclusive;
+    private final static AckMode DEFAULT_ACK_MODE = AckMode.INDIVIDUAL;
+    private final static int DEFAULT_ACK_BATCH_SIZE = 1000;
+    private final static int DEFAULT_ACK_INTERVAL_MS = 100;
+    private final static int DEFAULT_RECEIVER_QUEUE_SIZE = 1000;
+    private final static String[] DEFAULT_RETRY_DELAYS = {"1s", "10s", "1m"};
 
     private final PulsarProperties pulsarProperties;
     private final ConsumerProperties consumerProperties;
@@ -50,6 +63,18 @@ public class UrlBuildService {
         return DEFAULT_PERSISTENCE + "://" + pulsarProperties.getTenant() + "/" + namespace + "/" + topic;
     }
 
+    public List<String> buildTopicUrls(List<String> topics, String namespace) {
+        return topics.stream().map(topic -> buildTopicUrl(topic, namespace)).collect(Collectors.toList());
+    }
+
+    public String buildTopicsPattern(String topicsPattern, String namespace) {
+        if (topicsPattern.contains("://")) {
+            return topicsPattern;
+        }
+
+        return buildTopicUrl(topicsPattern, namespace);
+    }
+
     public String buildPulsarConsumerName(String customConsumerName, String generatedConsumerName) {
         if (Strings.isNullOrEmpty(customConsumerName)) {
             return CONSUMER_NAME_PREFIX + consumerNameDelimiter + generatedConsumerName;
@@ -58,6 +83,16 @@ public class UrlBuildService {
         return customConsumerName;
     }
 
+    public String buildPulsarConsumerName(String customConsumerName, String generatedConsumerName, int index) {
+        final String consumerName = buildPulsarConsumerName(customConsumerName, generatedConsumerName);
+
+        if (index == 0) {
+            return consumerName;
+        }
+
+        return consumerName + consumerNameDelimiter + index;
+    }
+
     public String buildPulsarSubscriptionName(String customSubscriptionName, String consumerName) {
         if (Strings.isNullOrEmpty(customSubscriptionName)) {
             return SUBSCRIPTION_NAME_PREFIX + consumerNameDelimiter + consumerName;
@@ -84,7 +119,85 @@ public class UrlBuildService {
         return type;
     }
 
+    public AckMode getAckMode(ConsumerHolder holder) throws ClientInitException {
+        final AckMode mode = Arrays.stream(holder.getAnnotation().ackMode()).findFirst().orElse(null);
+
+        if (mode != null) {
+            return mode;
+        }
+        if (Strings.isNullOrEmpty(consumerProperties.getAckMode())) {
+            return DEFAULT_ACK_MODE;
+        }
+
+        try {
+            return AckMode.valueOf(consumerProperties.getAckMode());
+        } catch (IllegalArgumentException exception) {
+            throw new ClientInitException("There was unknown AckMode.", exception);
+        }
+    }
+
+    public void buildAcknowledgmentGroupTime(int ackGroupTimeMs, ConsumerBuilder<?> consumerBuilder) {
+        if (ackGroupTimeMs >= 0) {
+            consumerBuilder.acknowledgmentGroupTime(ackGroupTimeMs, TimeUnit.MILLISECONDS);
+        } else if (consumerProperties.getAckGroupTimeMs() > 0) {
+            consumerBuilder.acknowledgmentGroupTime(consumerProperties.getAckGroupTimeMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int getAckBatchSize(int ackBatchSize) {
+        if (ackBatchSize > 0) {
+            return ackBatchSize;
+        }
+
+        return consumerProperties.getAckBatchSize() > 0 ? consumerProperties.getAckBatchSize() : DEFAULT_ACK_BATCH_SIZE;
+    }
+
+    public int getAckIntervalMs(int ackIntervalMs) {
+        if (ackIntervalMs > 0) {
+            return ackIntervalMs;
+        }
+
+        return consumerProperties.getAckIntervalMs() > 0 ? consumerProperties.getAckIntervalMs() : DEFAULT_ACK_INTERVAL_MS;
+    }
+
+    public int getReceiverQueueSize(int receiverQueueSize) {
+        if (receiverQueueSize >= 0) {
+            return receiverQueueSize;
+        }
+
+        return consumerProperties.getReceiverQueueSize() > 0 ? consumerProperties.getReceiverQueueSize() : DEFAULT_RECEIVER_QUEUE_SIZE;
+    }
+
+    public void buildReceiverQueue(int receiverQueueSize, int maxTotalReceiverQueueSizeAcrossPartitions,
+                                   ConsumerBuilder<?> consumerBuilder) {
+        consumerBuilder.receiverQueueSize(getReceiverQueueSize(receiverQueueSize));
+
+        if (maxTotalReceiverQueueSizeAcrossPartitions > 0) {
+            consumerBuilder.maxTotalReceiverQueueSizeAcrossPartitions(maxTotalReceiverQueueSizeAcrossPartitions);
+        } else if (consumerProperties.getMaxTotalReceiverQueueSizeAcrossPartitions() > 0) {
+            consumerBuilder.maxTotalReceiverQueueSizeAcrossPartitions(consumerProperties.getMaxTotalReceiverQueueSizeAcrossPartitions());
+        }
+    }
+
+    public void buildChunkedMessages(int maxPendingChunkedMessage, boolean autoAckOldestChunkedMessageOnQueueFull,
+                                     long expireTimeOfIncompleteChunkedMessageMs, ConsumerBuilder<?> consumerBuilder) {
+        if (maxPendingChunkedMessage > 0) {
+            consumerBuilder.maxPendingChunkedMessage(maxPendingChunkedMessage);
+        }
+        if (autoAckOldestChunkedMessageOnQueueFull) {
+            consumerBuilder.autoAckOldestChunkedMessageOnQueueFull(true);
+        }
+        if (expireTimeOfIncompleteChunkedMessageMs > 0) {
+            consumerBuilder.expireTimeOfIncompleteChunkedMessage(expireTimeOfIncompleteChunkedMessageMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
     public void buildDeadLetterPolicy(int maxRedeliverCount, String deadLetterTopic, ConsumerBuilder<?> consumerBuilder) {
+        buildDeadLetterPolicy(maxRedeliverCount, deadLetterTopic, "", new long[0], consumerBuilder);
+    }
+
+    public void buildDeadLetterPolicy(int maxRedeliverCount, String deadLetterTopic, String retryLetterTopic,
+                                      long[] retryDelaysMs, ConsumerBuilder<?> consumerBuilder) {
         DeadLetterPolicy.DeadLetterPolicyBuilder deadLetterBuilder = null;
 
         if (consumerProperties.getDeadLetterPolicyMaxRedeliverCount() >= 0) {
@@ -97,15 +210,98 @@ public class UrlBuildService {
                 DeadLetterPolicy.builder().maxRedeliverCount(maxRedeliverCount);
         }
 
+        if (deadLetterBuilder == null && retryDelaysMs.length > 0) {
+            deadLetterBuilder = DeadLetterPolicy.builder().maxRedeliverCount(retryDelaysMs.length);
+        }
+
         if (deadLetterBuilder != null && !deadLetterTopic.isEmpty()) {
             deadLetterBuilder.deadLetterTopic(buildTopicUrl(deadLetterTopic));
         }
 
+        if (retryDelaysMs.length > 0) {
+            consumerBuilder.enableRetry(true);
+
+            if (!Strings.isNullOrEmpty(retryLetterTopic)) {
+                deadLetterBuilder.retryLetterTopic(buildTopicUrl(retryLetterTopic));
+            }
+        }
+
         if (deadLetterBuilder != null) {
             consumerBuilder.deadLetterPolicy(deadLetterBuilder.build());
         }
     }
 
+    /**
+     * Delays of the retry tiers in milliseconds, empty when the retry letter topic is disabled.
+     */
+    public long[] getRetryDelaysMs(boolean enableRetry, String[] retryDelays) throws ClientInitException {
+        if (!enableRetry) {
+            return new long[0];
+        }
+
+        String[] delays = retryDelays;
+
+        if (delays.length == 0) {
+            delays = Strings.isNullOrEmpty(consumerProperties.getRetryDelays())
+                ? DEFAULT_RETRY_DELAYS
+                : consumerProperties.getRetryDelays().split(",");
+        }
+
+        try {
+            return Arrays.stream(delays)
+                .map(String::trim)
+                .map(DurationStyle::detectAndParse)
+                .mapToLong(Duration::toMillis)
+                .toArray();
+        } catch (IllegalArgumentException exception) {
+            throw new ClientInitException("There was unknown retry delay.", exception);
+        }
+    }
+
+    public void buildNegativeAckRedeliveryBackoff(long minDelayMs, long maxDelayMs, double multiplier,
+                                                  ConsumerBuilder<?> consumerBuilder) {
+        final long min = minDelayMs >= 0 ? minDelayMs : consumerProperties.getNegativeAckMinDelayMs();
+        final long max = maxDelayMs > 0 ? maxDelayMs : consumerProperties.getNegativeAckMaxDelayMs();
+        final double factor = multiplier > 0 ? multiplier : consumerProperties.getNegativeAckMultiplier();
+
+        if (minDelayMs < 0 && min <= 0 && max <= 0 && factor <= 0) {
+            return;
+        }
+
+        final MultiplierRedeliveryBackoff.MultiplierRedeliveryBackoffBuilder backoffBuilder =
+            MultiplierRedeliveryBackoff.builder();
+
+        if (minDelayMs >= 0 || min > 0) {
+            backoffBuilder.minDelayMs(min);
+        }
+        if (max > 0) {
+            backoffBuilder.maxDelayMs(max);
+        }
+        if (factor > 0) {
+            backoffBuilder.multiplier(factor);
+        }
+
+        consumerBuilder.negativeAckRedeliveryBackoff(backoffBuilder.build());
+    }
+
+    public void buildNegativeAckRedeliveryBackoff(RedeliveryBackoff redeliveryBackoff, ConsumerBuilder<?> consumerBuilder) {
+        if (redeliveryBackoff != null) {
+            consumerBuilder.negativeAckRedeliveryBackoff(redeliveryBackoff);
+        } else {
+            buildNegativeAckRedeliveryBackoff(-1, -1, -1, consumerBuilder);
+        }
+    }
+
+    public void buildBatchReceivePolicy(int maxMessages, int maxBytes, int timeoutMs, ConsumerBuilder<?> consumerBuilder) {
+        final BatchReceivePolicy defaultPolicy = BatchReceivePolicy.DEFAULT_POLICY;
+
+        consumerBuilder.batchReceivePolicy(BatchReceivePolicy.builder()
+            .maxNumMessages(maxMessages > 0 ? maxMessages : defaultPolicy.getMaxNumMessages())
+            .maxNumBytes(maxBytes > 0 ? maxBytes : defaultPolicy.getMaxNumBytes())
+            .timeout(timeoutMs > 0 ? timeoutMs : (int) defaultPolicy.getTimeoutMs(), TimeUnit.MILLISECONDS)
+            .build());
+    }
+
     public String buildConsumerName(Class<?> clazz, Method method) {
         return clazz.getName() + consumerNameDelimiter + method.getName() + Arrays
             .stream(method.getGenericParameterTypes())
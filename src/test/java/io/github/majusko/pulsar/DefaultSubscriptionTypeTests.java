@@ -52,6 +52,8 @@ class DefaultSubscriptionTypeTests {
     @DynamicPropertySource
     static void propertySettings(DynamicPropertyRegistry registry) {
         registry.add("pulsar.serviceUrl", pulsarContainer::getPulsarBrokerUrl);
+        // Both test contexts stay open, each needs its own locked deduplication store.
+        registry.add("pulsar.deduplication-store-dir", () -> "target/pulsar-deduplication-default-sub-type");
     }
 
     @Test
@@ -0,0 +1,137 @@
+package io.github.majusko.pulsar;
+
+import io.github.majusko.pulsar.consumer.ConsumerAggregator;
+import io.github.majusko.pulsar.consumer.MessageAcknowledger;
+import io.github.majusko.pulsar.producer.ProducerCollector;
+import io.github.majusko.pulsar.reactor.FluxConsumerFactory;
+import org.apache.pulsar.client.api.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PulsarGracefulShutdownTests {
+
+    private ConsumerAggregator consumerAggregator;
+    private FluxConsumerFactory fluxConsumerFactory;
+    private ProducerCollector producerCollector;
+    private PulsarGracefulShutdown shutdown;
+
+    @BeforeEach
+    void setUp() {
+        consumerAggregator = mock(ConsumerAggregator.class);
+        fluxConsumerFactory = mock(FluxConsumerFactory.class);
+        producerCollector = mock(ProducerCollector.class);
+        shutdown = new PulsarGracefulShutdown(consumerAggregator, fluxConsumerFactory, producerCollector);
+
+        when(consumerAggregator.close()).thenReturn(CompletableFuture.completedFuture(null));
+        when(fluxConsumerFactory.close()).thenReturn(CompletableFuture.completedFuture(null));
+        when(producerCollector.close()).thenReturn(CompletableFuture.completedFuture(null));
+        ReflectionTestUtils.setField(shutdown, "shutdownTimeoutMs", 5000L);
+    }
+
+    @Test
+    void testStopPausesDrainsAndClosesInOrder() {
+        when(consumerAggregator.getInFlight()).thenReturn(2, 1, 0);
+
+        shutdown.start();
+        Assertions.assertTrue(shutdown.isRunning());
+        Assertions.assertEquals(-1, shutdown.getDrainDurationMs());
+
+        shutdown.stop();
+
+        final InOrder order = inOrder(consumerAggregator, fluxConsumerFactory, producerCollector);
+
+        order.verify(consumerAggregator).pause();
+        order.verify(fluxConsumerFactory).pause();
+        order.verify(consumerAggregator, atLeast(3)).getInFlight();
+        order.verify(consumerAggregator).close();
+        order.verify(fluxConsumerFactory).close();
+        order.verify(producerCollector).close();
+
+        Assertions.assertFalse(shutdown.isRunning());
+        Assertions.assertTrue(shutdown.getDrainDurationMs() >= 100, String.valueOf(shutdown.getDrainDurationMs()));
+    }
+
+    @Test
+    void testStopWaitsForFluxConsumers() {
+        when(fluxConsumerFactory.getInFlight()).thenReturn(1, 0);
+
+        shutdown.stop();
+
+        final InOrder order = inOrder(fluxConsumerFactory, producerCollector);
+
+        order.verify(fluxConsumerFactory).pause();
+        order.verify(fluxConsumerFactory, atLeast(2)).getInFlight();
+        order.verify(fluxConsumerFactory).close();
+        order.verify(producerCollector).close();
+        Assertions.assertTrue(shutdown.getDrainDurationMs() >= 50, String.valueOf(shutdown.getDrainDurationMs()));
+    }
+
+    @Test
+    void testStopGivesUpDrainingAfterTimeout() {
+        ReflectionTestUtils.setField(shutdown, "shutdownTimeoutMs", 200L);
+        when(consumerAggregator.getInFlight()).thenReturn(1);
+
+        shutdown.stop();
+
+        final InOrder order = inOrder(consumerAggregator, producerCollector);
+
+        order.verify(consumerAggregator).pause();
+        order.verify(consumerAggregator).close();
+        order.verify(producerCollector).close();
+        Assertions.assertTrue(shutdown.getDrainDurationMs() >= 200, String.valueOf(shutdown.getDrainDurationMs()));
+        Assertions.assertTrue(shutdown.getDrainDurationMs() < 5000, String.valueOf(shutdown.getDrainDurationMs()));
+    }
+
+    @Test
+    void testConsumerCloseFlushesAcknowledgmentsFirst() throws Exception {
+        final ConsumerAggregator aggregator = new ConsumerAggregator(null, null, null, null, null);
+        final MessageAcknowledger acknowledger = mock(MessageAcknowledger.class);
+        final CompletableFuture<Void> flushed = new CompletableFuture<>();
+        final Consumer<?> consumer = mock(Consumer.class);
+
+        when(acknowledger.close()).thenReturn(flushed);
+        when(consumer.closeAsync()).thenReturn(CompletableFuture.completedFuture(null));
+        aggregator.getAcknowledgers().put("consumer", acknowledger);
+        aggregator.getConsumers().add(consumer);
+
+        final CompletableFuture<Void> closed = aggregator.close();
+
+        verify(consumer, never()).closeAsync();
+
+        flushed.complete(null);
+        closed.get(5, TimeUnit.SECONDS);
+
+        final InOrder order = inOrder(acknowledger, consumer);
+
+        order.verify(acknowledger).close();
+        order.verify(consumer).closeAsync();
+    }
+
+    @Test
+    void testStopClosesProducersWhenConsumersFailToClose() {
+        final CompletableFuture<Void> failed = new CompletableFuture<>();
+
+        failed.completeExceptionally(new IllegalStateException("Failed to close"));
+        when(consumerAggregator.close()).thenReturn(failed);
+
+        shutdown.stop();
+
+        final InOrder order = inOrder(consumerAggregator, producerCollector);
+
+        order.verify(consumerAggregator).close();
+        order.verify(producerCollector).close();
+    }
+}
@@ -4,21 +4,31 @@ import io.github.majusko.pulsar.collector.ConsumerCollector;
 import io.github.majusko.pulsar.collector.ConsumerHolder;
 import io.github.majusko.pulsar.constant.Serialization;
 import io.github.majusko.pulsar.consumer.ConsumerAggregator;
+import io.github.majusko.pulsar.consumer.CumulativeAcknowledger;
+import io.github.majusko.pulsar.consumer.FlowController;
 import io.github.majusko.pulsar.msg.AvroMsg;
+import io.github.majusko.pulsar.dedup.DeduplicationCache;
+import io.github.majusko.pulsar.dedup.MappedIdempotencyStore;
 import io.github.majusko.pulsar.msg.MyMsg;
 import io.github.majusko.pulsar.msg.ProtoMsg;
+import io.github.majusko.pulsar.producer.ProducerCollector;
 import io.github.majusko.pulsar.producer.ProducerFactory;
 import io.github.majusko.pulsar.producer.PulsarTemplate;
 import io.github.majusko.pulsar.reactor.FluxConsumer;
 import io.github.majusko.pulsar.reactor.FluxConsumerFactory;
 import io.github.majusko.pulsar.reactor.FluxConsumerHolder;
+import io.github.majusko.pulsar.utils.SchemaUtils;
 import io.github.majusko.pulsar.utils.UrlBuildService;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.pulsar.client.api.CompressionType;
 import org.apache.pulsar.client.api.Consumer;
 import org.apache.pulsar.client.api.PulsarClientException;
+import org.apache.pulsar.client.api.Schema;
 import org.apache.pulsar.client.api.SubscriptionType;
 import org.apache.pulsar.client.impl.ConsumerBase;
+import org.apache.pulsar.client.impl.ProducerBase;
 import org.apache.pulsar.client.impl.conf.ConsumerConfigurationData;
+import org.apache.pulsar.client.impl.conf.ProducerConfigurationData;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,9 +45,11 @@ import org.testcontainers.utility.DockerImageName;
 import reactor.core.Disposable;
 
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -76,6 +88,12 @@ class PulsarJavaSpringBootStarterApplicationTests {
     @Autowired
     private PulsarTemplate<String> producerForStringTopic;
 
+    @Autowired
+    private PulsarTemplate<ByteBuffer> producerForByteBufferTopic;
+
+    @Autowired
+    private ProducerCollector producerCollector;
+
     @Autowired
     private TestConsumers testConsumers;
 
@@ -97,6 +115,9 @@ class PulsarJavaSpringBootStarterApplicationTests {
     @Autowired
     private FluxConsumerFactory fluxConsumerFactory;
 
+    @Autowired
+    private PulsarGracefulShutdown pulsarGracefulShutdown;
+
     @Value("${my.custom.subscription.name}")
     private String customSubscriptionName;
 
@@ -169,7 +190,7 @@ class PulsarJavaSpringBootStarterApplicationTests {
         final List<Consumer> classicConsumers = consumerAggregator.getConsumers();
         final List<Consumer> fluxConsumers = fluxConsumerFactory.getConsumers();
 
-        Assertions.assertEquals(19, classicConsumers.size() + fluxConsumers.size());
+        Assertions.assertEquals(44, classicConsumers.size() + fluxConsumers.size());
 
         final Consumer<?> consumer =
             classicConsumers.stream().filter($ -> $.getTopic().equals(urlBuildService.buildTopicUrl("topic-one"))).findFirst().orElseThrow(Exception::new);
@@ -200,7 +221,7 @@ class PulsarJavaSpringBootStarterApplicationTests {
 
         final Map<String, ImmutableTriple<Class<?>, Serialization, Optional<String>>> topics = producerFactory.getTopics();
 
-        Assertions.assertEquals(19, topics.size());
+        Assertions.assertEquals(43, topics.size());
 
         final Set<String> topicNames = new HashSet<>(topics.keySet());
 
@@ -224,6 +245,8 @@ class PulsarJavaSpringBootStarterApplicationTests {
 
         await().untilTrue(receivedError);
 
+        Assertions.assertTrue(consumerAggregator.getErrorPipeline().getEmittedCount() > 0);
+
         disposable.dispose();
     }
 
@@ -353,6 +376,24 @@ class PulsarJavaSpringBootStarterApplicationTests {
         await().atMost(Duration.ofSeconds(10)).until(received::get);
     }
 
+    @Test
+    void testFluxConsumerChunkedMessageOptions() throws Exception {
+        final ConsumerBase<?> consumer = (ConsumerBase<?>) fluxConsumerFactory.getConsumers().stream()
+            .filter($ -> $.getTopic().equals(urlBuildService.buildTopicUrl(TestFluxConsumersConfiguration.ROBUST_FLUX_TOPIC_TEST)))
+            .findFirst()
+            .orElseThrow(() -> new Exception("Missing tested consumer."));
+
+        final Field f = ConsumerBase.class.getDeclaredField("conf");
+
+        f.setAccessible(true);
+
+        final ConsumerConfigurationData<?> conf = (ConsumerConfigurationData<?>) f.get(consumer);
+
+        Assertions.assertEquals(5, conf.getMaxPendingChunkedMessage());
+        Assertions.assertTrue(conf.isAutoAckOldestChunkedMessageOnQueueFull());
+        Assertions.assertEquals(TimeUnit.SECONDS.toMillis(30), conf.getExpireTimeOfIncompleteChunkedMessageMillis());
+    }
+
     @Test
     void testRobustFluxConsumer() throws PulsarClientException {
         final AtomicBoolean received = new AtomicBoolean(false);
@@ -389,4 +430,334 @@ class PulsarJavaSpringBootStarterApplicationTests {
         producer.send(TestConsumers.CUSTOM_NAMESPACE_TOPIC, new MyMsg(VALIDATION_STRING));
         await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.customConsumerNamespaceReceived.get());
     }
+
+    @Test
+    void testBatchConsumer() throws PulsarClientException {
+        for (int i = 0; i < 5; i++) {
+            producer.send(TestConsumers.BATCH_TOPIC, new MyMsg(VALIDATION_STRING));
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.batchTopicReceivedCount.get() == 5);
+    }
+
+    @Test
+    void testAsyncHandler() throws PulsarClientException {
+        producer.send(TestConsumers.ASYNC_HANDLER_TOPIC, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).untilTrue(testConsumers.asyncHandlerReceived);
+    }
+
+    @Test
+    void testAsyncHandlerPausesAtMaxInFlight() throws PulsarClientException {
+        final FlowController flowController = getFlowController(TestConsumers.ASYNC_IN_FLIGHT_TOPIC);
+
+        for (int i = 0; i < 30; i++) {
+            producer.send(TestConsumers.ASYNC_IN_FLIGHT_TOPIC, new MyMsg(VALIDATION_STRING));
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> flowController.isPaused() && flowController.getInFlight() >= 5);
+        await().during(Duration.ofSeconds(1)).atMost(Duration.ofSeconds(3))
+            .until(() -> testConsumers.asyncInFlightTopicStartedCount.get() < 30);
+
+        Assertions.assertEquals(0, testConsumers.asyncInFlightTopicCompletedCount.get());
+
+        testConsumers.asyncInFlightTopicGate.complete(null);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.asyncInFlightTopicCompletedCount.get() == 30);
+        await().atMost(Duration.ofSeconds(10)).until(() -> flowController.getInFlight() == 0 && !flowController.isPaused());
+    }
+
+    @Test
+    void testMonoHandler() throws PulsarClientException {
+        final FlowController flowController = getFlowController(TestConsumers.MONO_HANDLER_TOPIC);
+
+        producer.send(TestConsumers.MONO_HANDLER_TOPIC, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).untilTrue(testConsumers.monoHandlerReceived);
+        await().atMost(Duration.ofSeconds(10)).until(() -> flowController.getInFlight() == 0);
+
+        Assertions.assertEquals(1000, flowController.getMaxInFlight());
+    }
+
+    private FlowController getFlowController(String topic) {
+        final Consumer<?> consumer = consumerAggregator.getConsumers().stream()
+            .filter($ -> $.getTopic().equals(urlBuildService.buildTopicUrl(topic)))
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+
+        return consumerAggregator.getFlowControllers().get(consumer.getConsumerName());
+    }
+
+    @Test
+    void testConcurrentConsumerKeepsKeyOrder() throws PulsarClientException {
+        final List<String> keys = Arrays.asList("key-a", "key-b", "key-c");
+        final int messagesPerKey = 20;
+
+        for (int i = 0; i < messagesPerKey; i++) {
+            for (String key : keys) {
+                producer.createMessage(TestConsumers.CONCURRENT_TOPIC, new MyMsg(String.valueOf(i))).key(key).send();
+            }
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> keys.stream()
+            .allMatch(key -> testConsumers.concurrentTopicReceived.getOrDefault(key, Collections.emptyList()).size() == messagesPerKey));
+
+        keys.forEach(key -> {
+            final List<Integer> received = testConsumers.concurrentTopicReceived.get(key);
+            final List<Integer> sorted = new ArrayList<>(received);
+            Collections.sort(sorted);
+            Assertions.assertEquals(sorted, received);
+        });
+    }
+
+    @Test
+    void testConsumerRunsOnDedicatedExecutor() throws PulsarClientException {
+        producer.send(TestConsumers.EXECUTOR_TOPIC, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.executorTopicThread.get() != null);
+
+        Assertions.assertTrue(testConsumers.executorTopicThread.get().startsWith("pulsar-executor-"));
+        await().atMost(Duration.ofSeconds(10)).until(() -> consumerAggregator.getExecutors().values().stream()
+            .anyMatch(executor -> executor.getCompletedTaskCount() > 0 && executor.getPoolSize() == 2));
+    }
+
+    @Test
+    void testVirtualThreadsConsumer() throws PulsarClientException {
+        for (int i = 0; i < 20; i++) {
+            producer.send(TestConsumers.VIRTUAL_THREADS_TOPIC, new MyMsg(VALIDATION_STRING));
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.virtualThreadsTopicReceivedCount.get() == 20);
+    }
+
+    @Test
+    void testCumulativeAcknowledgment() throws Exception {
+        final Consumer<?> consumer = consumerAggregator.getConsumers().stream()
+            .filter($ -> $.getTopic().equals(urlBuildService.buildTopicUrl(TestConsumers.CUMULATIVE_ACK_TOPIC)))
+            .findFirst()
+            .orElseThrow(() -> new Exception("Missing tested consumer."));
+
+        Assertions.assertTrue(consumerAggregator.getAcknowledgers().get(consumer.getConsumerName()) instanceof CumulativeAcknowledger);
+
+        for (int i = 0; i < 12; i++) {
+            producer.send(TestConsumers.CUMULATIVE_ACK_TOPIC, new MyMsg(String.valueOf(i)));
+        }
+
+        final List<String> deliveries = testConsumers.cumulativeAckTopicDeliveries;
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> deliveries.size() == 13);
+
+        // The failed message comes back once, the messages acknowledged around it never do.
+        await().during(Duration.ofSeconds(2)).atMost(Duration.ofSeconds(5)).until(() -> deliveries.size() == 13);
+
+        for (int i = 0; i < 12; i++) {
+            final String data = String.valueOf(i);
+
+            Assertions.assertEquals(data.equals(TestConsumers.CUMULATIVE_ACK_FAILING_DATA) ? 2 : 1,
+                Collections.frequency(deliveries, data), data);
+        }
+    }
+
+    @Test
+    void testMultipleConsumersOnSharedSubscription() throws PulsarClientException {
+        final List<Consumer> consumers = consumerAggregator.getConsumers().stream()
+            .filter(consumer -> consumer.getTopic().equals(urlBuildService.buildTopicUrl(TestConsumers.MULTIPLE_CONSUMERS_TOPIC)))
+            .collect(Collectors.toList());
+
+        Assertions.assertEquals(3, consumers.size());
+        Assertions.assertEquals(3, consumers.stream().map(Consumer::getConsumerName).distinct().count());
+        Assertions.assertEquals(1, consumers.stream().map(Consumer::getSubscription).distinct().count());
+
+        for (int i = 0; i < 30; i++) {
+            producer.send(TestConsumers.MULTIPLE_CONSUMERS_TOPIC, new MyMsg(VALIDATION_STRING));
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.multipleConsumersTopicReceivedCount.get() == 30);
+    }
+
+    @Test
+    void testAdaptivePrefetchConsumer() throws PulsarClientException {
+        for (int i = 0; i < 200; i++) {
+            producer.send(TestConsumers.ADAPTIVE_PREFETCH_TOPIC, new MyMsg(VALIDATION_STRING));
+        }
+
+        await().atMost(Duration.ofSeconds(20)).until(() -> testConsumers.adaptivePrefetchTopicReceivedCount.get() == 200);
+    }
+
+    @Test
+    void testLatencyDrivenFlowControl() throws PulsarClientException {
+        for (int i = 0; i < 500; i++) {
+            producer.send(TestConsumers.FLOW_CONTROL_TOPIC, new MyMsg(VALIDATION_STRING));
+        }
+
+        await().atMost(Duration.ofSeconds(30)).until(() -> testConsumers.flowControlTopicReceivedCount.get() == 500);
+
+        Assertions.assertTrue(consumerAggregator.getFlowControllers().values().stream()
+            .anyMatch(flowController -> flowController.getPolicy().getPauseLatencyMs() == 2 && flowController.getPauseCount() > 0));
+    }
+
+    @Test
+    void testNegativeAckRedeliveryBackoff() throws PulsarClientException {
+        producer.send(TestConsumers.NEGATIVE_ACK_BACKOFF_TOPIC, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.negativeAckBackoffTopicDeliveries.size() == 3);
+
+        final List<Long> deliveries = testConsumers.negativeAckBackoffTopicDeliveries;
+
+        Assertions.assertTrue(deliveries.get(1) - deliveries.get(0) >= 200);
+        Assertions.assertTrue(deliveries.get(2) - deliveries.get(1) >= 600);
+    }
+
+    @Test
+    void testRetryLetterTopicTiers() throws PulsarClientException {
+        producer.send(TestConsumers.RETRY_LETTER_TOPIC, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.retryLetterTopicDeliveries.size() == 3);
+
+        final List<Long> deliveries = testConsumers.retryLetterTopicDeliveries;
+
+        Assertions.assertTrue(deliveries.get(1) - deliveries.get(0) >= 200);
+        Assertions.assertTrue(deliveries.get(2) - deliveries.get(1) >= 1000);
+    }
+
+    @Test
+    void testMultiTopicConsumer() throws PulsarClientException {
+        producer.send(TestConsumers.MULTI_TOPIC_FIRST, new MyMsg(VALIDATION_STRING));
+        producer.send(TestConsumers.MULTI_TOPIC_SECOND, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.multiTopicReceivedTopics.size() == 2);
+
+        Assertions.assertTrue(testConsumers.multiTopicReceivedTopics.contains(urlBuildService.buildTopicUrl(TestConsumers.MULTI_TOPIC_FIRST)));
+        Assertions.assertTrue(testConsumers.multiTopicReceivedTopics.contains(urlBuildService.buildTopicUrl(TestConsumers.MULTI_TOPIC_SECOND)));
+    }
+
+    @Test
+    void testTopicsPatternConsumer() throws PulsarClientException {
+        producer.send(TestConsumers.TOPICS_PATTERN_TOPIC, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.topicsPatternReceivedCount.get() == 1);
+    }
+
+    @Test
+    void testParallelSubscriptionLatencies() {
+        Assertions.assertEquals(consumerAggregator.getConsumers().size(), consumerAggregator.getSubscribeLatencies().size());
+        Assertions.assertTrue(fluxConsumerFactory.getSubscribeLatencies().containsKey("my-consumer-name"));
+    }
+
+    @Test
+    void testGracefulShutdownRegistered() {
+        Assertions.assertTrue(pulsarGracefulShutdown.isRunning());
+        Assertions.assertEquals(-1, pulsarGracefulShutdown.getDrainDurationMs());
+    }
+
+    @Test
+    void testDeduplicationByKey() throws Exception {
+        final DeduplicationCache cache = consumerAggregator.getDeduplicationCaches().get(urlBuildService.buildConsumerName(
+            TestConsumers.class, TestConsumers.class.getMethod("deduplicationTopic", MyMsg.class)));
+
+        Assertions.assertNotNull(cache);
+
+        for (int i = 0; i < 3; i++) {
+            producer.createMessage(TestConsumers.DEDUPLICATION_TOPIC, new MyMsg(VALIDATION_STRING)).key("same-key").send();
+        }
+        producer.createMessage(TestConsumers.DEDUPLICATION_TOPIC, new MyMsg(VALIDATION_STRING)).key("other-key").send();
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> cache.getHitCount() + cache.getMissCount() == 4);
+
+        Assertions.assertEquals(2, cache.getHitCount());
+
+        Assertions.assertEquals(2, testConsumers.deduplicationTopicReceivedCount.get());
+    }
+
+    @Test
+    void testPersistentDeduplication() throws PulsarClientException {
+        final String key = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 2; i++) {
+            producer.createMessage(TestConsumers.PERSISTENT_DEDUPLICATION_TOPIC, new MyMsg(VALIDATION_STRING)).key(key).send();
+        }
+
+        final DeduplicationCache cache = consumerAggregator.getDeduplicationCaches().values().stream()
+            .filter(it -> it.getStore() instanceof MappedIdempotencyStore)
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> cache.getHitCount() + cache.getMissCount() == 2);
+
+        Assertions.assertEquals(1, testConsumers.persistentDeduplicationTopicReceivedCount.get());
+    }
+
+    @Test
+    void testChunkedMessageOverMaxMessageSize() throws Exception {
+        final byte[] data = new byte[6 * 1024 * 1024];
+
+        new Random().nextBytes(data);
+        producerForByteTopic.send(TestConsumers.CHUNKING_TOPIC, data);
+
+        await().atMost(Duration.ofSeconds(20)).until(() -> testConsumers.chunkingTopicReceivedSize.get() == data.length);
+    }
+
+    @Test
+    void testSchemaCache() {
+        Assertions.assertSame(SchemaUtils.getSchema(Serialization.JSON, MyMsg.class),
+            SchemaUtils.getSchema(Serialization.JSON, MyMsg.class));
+        Assertions.assertNotSame(SchemaUtils.getSchema(Serialization.JSON, MyMsg.class),
+            SchemaUtils.getSchema(Serialization.AVRO, MyMsg.class));
+        Assertions.assertNotSame(SchemaUtils.getProducerSchema(Serialization.AVRO, AvroMsg.class),
+            SchemaUtils.getProducerSchema(Serialization.AVRO, AvroMsg.class));
+    }
+
+    @Test
+    void testFastJsonSerialization() throws PulsarClientException {
+        producer.send(TestConsumers.FAST_JSON_TOPIC, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.fastJsonTopicReceived.get());
+        Assertions.assertEquals(Schema.JSON(MyMsg.class).getSchemaInfo().getSchemaDefinition(),
+            SchemaUtils.getSchema(Serialization.FAST_JSON, MyMsg.class).getSchemaInfo().getSchemaDefinition());
+    }
+
+    @Test
+    void testByteBufferPayload() throws PulsarClientException {
+        producerForByteBufferTopic.send(TestConsumers.BYTE_BUFFER_TOPIC,
+            ByteBuffer.wrap(VALIDATION_STRING.getBytes(StandardCharsets.UTF_8)));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.byteBufferTopicReceived.get());
+    }
+
+    @Test
+    void protoNativeSerializationTestOk() throws Exception {
+        producerForProtoTopic.send(TestConsumers.PROTO_NATIVE_TOPIC, ProtoMsg.newBuilder().setData(VALIDATION_STRING).build());
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.protoNativeTopicReceived.get());
+    }
+
+    @Test
+    void pooledProtoSerializationTestOk() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            producerForProtoTopic.send(TestConsumers.POOLED_PROTO_TOPIC, ProtoMsg.newBuilder().setData(VALIDATION_STRING).build());
+        }
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.pooledProtoTopicReceivedCount.get() == 2);
+    }
+
+    @Test
+    void testProducerOptions() throws PulsarClientException {
+        final ProducerConfigurationData tuned =
+            ((ProducerBase<?>) producerCollector.getProducer(TestConsumers.TUNED_PRODUCER_TOPIC)).getConfiguration();
+        final ProducerConfigurationData chunking =
+            ((ProducerBase<?>) producerCollector.getProducer(TestConsumers.CHUNKING_TOPIC)).getConfiguration();
+
+        Assertions.assertEquals(CompressionType.ZSTD, tuned.getCompressionType());
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toMicros(10), tuned.getBatchingMaxPublishDelayMicros());
+        Assertions.assertEquals(500, tuned.getBatchingMaxMessages());
+        Assertions.assertEquals(2000, tuned.getMaxPendingMessages());
+        Assertions.assertTrue(tuned.isBlockIfQueueFull());
+        Assertions.assertTrue(tuned.isBatchingEnabled());
+        Assertions.assertFalse(chunking.isBatchingEnabled());
+        Assertions.assertTrue(chunking.isChunkingEnabled());
+
+        producer.send(TestConsumers.TUNED_PRODUCER_TOPIC, new MyMsg(VALIDATION_STRING));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> testConsumers.tunedProducerTopicReceived.get());
+    }
 }
@@ -1,17 +1,31 @@
 package io.github.majusko.pulsar;
 
 import io.github.majusko.pulsar.annotation.PulsarConsumer;
+import io.github.majusko.pulsar.constant.AckMode;
+import io.github.majusko.pulsar.constant.DeduplicationMode;
 import io.github.majusko.pulsar.constant.Serialization;
 import io.github.majusko.pulsar.msg.AvroMsg;
 import io.github.majusko.pulsar.msg.MyMsg;
 import io.github.majusko.pulsar.msg.ProtoMsg;
+import org.apache.pulsar.client.api.SubscriptionInitialPosition;
 import org.apache.pulsar.client.api.SubscriptionType;
 import org.junit.jupiter.api.Assertions;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class TestConsumers {
@@ -32,6 +46,32 @@ public class TestConsumers {
     public AtomicInteger failTwiceRetryCount = new AtomicInteger(0);
     public AtomicInteger topicOverflowDueToExceptionRetryCount = new AtomicInteger(0);
     public AtomicBoolean customConsumerNamespaceReceived = new AtomicBoolean(false);
+    public AtomicInteger batchTopicReceivedCount = new AtomicInteger(0);
+    public AtomicBoolean asyncHandlerReceived = new AtomicBoolean(false);
+    public AtomicInteger asyncInFlightTopicStartedCount = new AtomicInteger(0);
+    public AtomicInteger asyncInFlightTopicCompletedCount = new AtomicInteger(0);
+    public CompletableFuture<Void> asyncInFlightTopicGate = new CompletableFuture<>();
+    public AtomicBoolean monoHandlerReceived = new AtomicBoolean(false);
+    public Map<String, List<Integer>> concurrentTopicReceived = new ConcurrentHashMap<>();
+    public AtomicReference<String> executorTopicThread = new AtomicReference<>();
+    public AtomicInteger virtualThreadsTopicReceivedCount = new AtomicInteger(0);
+    public List<String> cumulativeAckTopicDeliveries = Collections.synchronizedList(new ArrayList<>());
+    public AtomicBoolean cumulativeAckTopicFailed = new AtomicBoolean(false);
+    public AtomicInteger multipleConsumersTopicReceivedCount = new AtomicInteger(0);
+    public AtomicInteger adaptivePrefetchTopicReceivedCount = new AtomicInteger(0);
+    public AtomicInteger flowControlTopicReceivedCount = new AtomicInteger(0);
+    public List<Long> negativeAckBackoffTopicDeliveries = Collections.synchronizedList(new ArrayList<>());
+    public List<Long> retryLetterTopicDeliveries = Collections.synchronizedList(new ArrayList<>());
+    public Set<String> multiTopicReceivedTopics = ConcurrentHashMap.newKeySet();
+    public AtomicInteger topicsPatternReceivedCount = new AtomicInteger(0);
+    public AtomicInteger deduplicationTopicReceivedCount = new AtomicInteger(0);
+    public AtomicInteger persistentDeduplicationTopicReceivedCount = new AtomicInteger(0);
+    public AtomicInteger chunkingTopicReceivedSize = new AtomicInteger(0);
+    public AtomicBoolean fastJsonTopicReceived = new AtomicBoolean(false);
+    public AtomicBoolean byteBufferTopicReceived = new AtomicBoolean(false);
+    public AtomicBoolean protoNativeTopicReceived = new AtomicBoolean(false);
+    public AtomicBoolean tunedProducerTopicReceived = new AtomicBoolean(false);
+    public AtomicInteger pooledProtoTopicReceivedCount = new AtomicInteger(0);
 
     public static final String CUSTOM_CONSUMER_NAME = "custom-consumer-name";
     public static final String CUSTOM_SUBSCRIPTION_NAME= "custom-subscription-name";
@@ -40,6 +80,31 @@ public class TestConsumers {
     public static final String SHARED_SUB_TEST = "shared-sub-consumer";
     public static final String EXCLUSIVE_SUB_TEST = "exclusive-sub-consumer";
     public static final String CUSTOM_NAMESPACE_TOPIC = "custom-namespace-name";
+    public static final String BATCH_TOPIC = "topic-batch";
+    public static final String ASYNC_HANDLER_TOPIC = "topic-async-handler";
+    public static final String ASYNC_IN_FLIGHT_TOPIC = "topic-async-in-flight";
+    public static final String MONO_HANDLER_TOPIC = "topic-mono-handler";
+    public static final String CONCURRENT_TOPIC = "topic-concurrent";
+    public static final String EXECUTOR_TOPIC = "topic-executor";
+    public static final String VIRTUAL_THREADS_TOPIC = "topic-virtual-threads";
+    public static final String CUMULATIVE_ACK_TOPIC = "topic-cumulative-ack";
+    public static final String CUMULATIVE_ACK_FAILING_DATA = "6";
+    public static final String MULTIPLE_CONSUMERS_TOPIC = "topic-multiple-consumers";
+    public static final String ADAPTIVE_PREFETCH_TOPIC = "topic-adaptive-prefetch";
+    public static final String FLOW_CONTROL_TOPIC = "topic-flow-control";
+    public static final String NEGATIVE_ACK_BACKOFF_TOPIC = "topic-negative-ack-backoff";
+    public static final String RETRY_LETTER_TOPIC = "topic-retry-letter";
+    public static final String MULTI_TOPIC_FIRST = "topic-multi-first";
+    public static final String MULTI_TOPIC_SECOND = "topic-multi-second";
+    public static final String TOPICS_PATTERN_TOPIC = "topic-pattern-one";
+    public static final String DEDUPLICATION_TOPIC = "topic-deduplication";
+    public static final String PERSISTENT_DEDUPLICATION_TOPIC = "topic-persistent-deduplication";
+    public static final String CHUNKING_TOPIC = "topic-chunking";
+    public static final String FAST_JSON_TOPIC = "topic-fast-json";
+    public static final String BYTE_BUFFER_TOPIC = "topic-byte-buffer";
+    public static final String PROTO_NATIVE_TOPIC = "topic-proto-native";
+    public static final String TUNED_PRODUCER_TOPIC = "topic-tuned-producer";
+    public static final String POOLED_PROTO_TOPIC = "topic-pooled-proto";
 
     @PulsarConsumer(topic = "topic-one", clazz = MyMsg.class, serialization = Serialization.JSON)
     public void topicOneListener(MyMsg myMsg) {
@@ -97,6 +162,9 @@ public class TestConsumers {
         Assertions.assertNotNull(myMsg.getPublishTime());
         Assertions.assertNotNull(myMsg.getTopicName());
         Assertions.assertNotNull(myMsg.getMessageId());
+        Assertions.assertEquals(0, myMsg.getRedeliveryCount());
+        Assertions.assertEquals(myMsg.getData().length, myMsg.getDataBuffer().remaining());
+        Assertions.assertNotNull(myMsg.getValue());
         mockTopicMessageListenerReceived.set(true);
     }
 
@@ -191,4 +259,176 @@ public class TestConsumers {
         Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
         customConsumerNamespaceReceived.set(true);
     }
+
+    @PulsarConsumer(
+        topic = BATCH_TOPIC,
+        clazz = MyMsg.class,
+        batch = true,
+        batchMaxMessages = 10,
+        batchTimeoutMs = 200)
+    public void batchTopic(List<PulsarMessage<MyMsg>> messages) {
+        Assertions.assertFalse(messages.isEmpty());
+        messages.forEach(msg -> Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, msg.getValue().getData()));
+        batchTopicReceivedCount.addAndGet(messages.size());
+    }
+
+    @PulsarConsumer(topic = ASYNC_HANDLER_TOPIC, clazz = MyMsg.class, maxInFlight = 100)
+    public CompletableFuture<Void> asyncHandlerTopic(MyMsg myMsg) {
+        return CompletableFuture.runAsync(() -> {
+            Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+            asyncHandlerReceived.set(true);
+        });
+    }
+
+    @PulsarConsumer(topic = ASYNC_IN_FLIGHT_TOPIC, clazz = MyMsg.class, maxInFlight = 5, receiverQueueSize = 5)
+    public CompletableFuture<Void> asyncInFlightTopic(MyMsg myMsg) {
+        asyncInFlightTopicStartedCount.incrementAndGet();
+
+        return asyncInFlightTopicGate.thenRunAsync(asyncInFlightTopicCompletedCount::incrementAndGet);
+    }
+
+    @PulsarConsumer(topic = MONO_HANDLER_TOPIC, clazz = MyMsg.class)
+    public Mono<Void> monoHandlerTopic(MyMsg myMsg) {
+        return Mono.fromRunnable(() -> {
+            Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+            monoHandlerReceived.set(true);
+        }).subscribeOn(Schedulers.parallel()).then();
+    }
+
+    @PulsarConsumer(topic = CONCURRENT_TOPIC, clazz = MyMsg.class, concurrency = 4)
+    public void concurrentTopic(PulsarMessage<MyMsg> msg) {
+        concurrentTopicReceived
+            .computeIfAbsent(msg.getKey(), key -> Collections.synchronizedList(new ArrayList<>()))
+            .add(Integer.valueOf(msg.getValue().getData()));
+    }
+
+    @PulsarConsumer(topic = EXECUTOR_TOPIC, clazz = MyMsg.class, executorThreads = 2, executorQueueCapacity = 10)
+    public void executorTopic(MyMsg myMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        executorTopicThread.set(Thread.currentThread().getName());
+    }
+
+    @PulsarConsumer(topic = VIRTUAL_THREADS_TOPIC, clazz = MyMsg.class, virtualThreads = true, maxInFlight = 10)
+    public void virtualThreadsTopic(MyMsg myMsg) throws InterruptedException {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        Thread.sleep(100);
+        virtualThreadsTopicReceivedCount.incrementAndGet();
+    }
+
+    @PulsarConsumer(topic = CUMULATIVE_ACK_TOPIC, clazz = MyMsg.class, ackMode = AckMode.CUMULATIVE, ackBatchSize = 5,
+        negativeAckMinDelayMs = 100)
+    public void cumulativeAckTopic(MyMsg myMsg) {
+        cumulativeAckTopicDeliveries.add(myMsg.getData());
+
+        if (CUMULATIVE_ACK_FAILING_DATA.equals(myMsg.getData()) && cumulativeAckTopicFailed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Failing once inside a cumulative batch.");
+        }
+    }
+
+    @PulsarConsumer(topic = MULTIPLE_CONSUMERS_TOPIC, clazz = MyMsg.class, subscriptionType = SubscriptionType.Shared, consumers = 3)
+    public void multipleConsumersTopic(MyMsg myMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        multipleConsumersTopicReceivedCount.incrementAndGet();
+    }
+
+    @PulsarConsumer(topic = ADAPTIVE_PREFETCH_TOPIC, clazz = MyMsg.class, receiverQueueSize = 50, adaptivePrefetch = true)
+    public void adaptivePrefetchTopic(MyMsg myMsg) throws InterruptedException {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        Thread.sleep(5);
+        adaptivePrefetchTopicReceivedCount.incrementAndGet();
+    }
+
+    @PulsarConsumer(topic = FLOW_CONTROL_TOPIC, clazz = MyMsg.class, pauseLatencyMs = 2, resumeLatencyMs = 1)
+    public void flowControlTopic(MyMsg myMsg) throws InterruptedException {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        Thread.sleep(5);
+        flowControlTopicReceivedCount.incrementAndGet();
+    }
+
+    @PulsarConsumer(topic = NEGATIVE_ACK_BACKOFF_TOPIC, clazz = MyMsg.class, negativeAckMinDelayMs = 200,
+        negativeAckMaxDelayMs = 2000, negativeAckMultiplier = 3)
+    public void negativeAckBackoffTopic(PulsarMessage<MyMsg> msg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, msg.getValue().getData());
+        negativeAckBackoffTopicDeliveries.add(System.currentTimeMillis());
+
+        if (msg.getRedeliveryCount() < 2) {
+            throw new IllegalStateException("Redeliver " + msg.getRedeliveryCount());
+        }
+    }
+
+    @PulsarConsumer(topic = RETRY_LETTER_TOPIC, clazz = MyMsg.class, subscriptionType = SubscriptionType.Shared,
+        enableRetry = true, retryDelays = {"200ms", "1s"})
+    public void retryLetterTopic(MyMsg myMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        retryLetterTopicDeliveries.add(System.currentTimeMillis());
+
+        if (retryLetterTopicDeliveries.size() < 3) {
+            throw new IllegalStateException("Retry later");
+        }
+    }
+
+    @PulsarConsumer(topics = {MULTI_TOPIC_FIRST, MULTI_TOPIC_SECOND}, clazz = MyMsg.class)
+    public void multiTopic(PulsarMessage<MyMsg> msg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, msg.getValue().getData());
+        multiTopicReceivedTopics.add(msg.getTopicName());
+    }
+
+    @PulsarConsumer(topicsPattern = "topic-pattern-.*", patternAutoDiscoveryPeriodSec = 1, clazz = MyMsg.class,
+        initialPosition = SubscriptionInitialPosition.Earliest)
+    public void topicsPattern(MyMsg myMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        topicsPatternReceivedCount.incrementAndGet();
+    }
+
+    @PulsarConsumer(topic = DEDUPLICATION_TOPIC, clazz = MyMsg.class, deduplication = DeduplicationMode.KEY)
+    public void deduplicationTopic(MyMsg myMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        deduplicationTopicReceivedCount.incrementAndGet();
+    }
+
+    @PulsarConsumer(topic = PERSISTENT_DEDUPLICATION_TOPIC, clazz = MyMsg.class, deduplication = DeduplicationMode.KEY,
+        deduplicationPersistent = true)
+    public void persistentDeduplicationTopic(MyMsg myMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        persistentDeduplicationTopicReceivedCount.incrementAndGet();
+    }
+
+    @PulsarConsumer(topic = CHUNKING_TOPIC, maxPendingChunkedMessage = 5, autoAckOldestChunkedMessageOnQueueFull = true,
+        expireTimeOfIncompleteChunkedMessageMs = 30000)
+    public void chunkingTopic(byte[] byteMsg) {
+        chunkingTopicReceivedSize.set(byteMsg.length);
+    }
+
+    @PulsarConsumer(topic = FAST_JSON_TOPIC, clazz = MyMsg.class, serialization = Serialization.FAST_JSON)
+    public void fastJsonTopic(MyMsg myMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        fastJsonTopicReceived.set(true);
+    }
+
+    @PulsarConsumer(topic = BYTE_BUFFER_TOPIC)
+    public void byteBufferTopic(ByteBuffer payload) {
+        Assertions.assertTrue(payload.isReadOnly());
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING,
+            StandardCharsets.UTF_8.decode(payload).toString());
+        byteBufferTopicReceived.set(true);
+    }
+
+    @PulsarConsumer(topic = PROTO_NATIVE_TOPIC, clazz = ProtoMsg.class, serialization = Serialization.PROTOBUF_NATIVE)
+    public void protoNativeTopic(ProtoMsg protoMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, protoMsg.getData());
+        protoNativeTopicReceived.set(true);
+    }
+
+    @PulsarConsumer(topic = TUNED_PRODUCER_TOPIC, clazz = MyMsg.class)
+    public void tunedProducerTopic(MyMsg myMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, myMsg.getData());
+        tunedProducerTopicReceived.set(true);
+    }
+
+    @PulsarConsumer(topic = POOLED_PROTO_TOPIC, clazz = ProtoMsg.class, serialization = Serialization.PROTOBUF,
+        poolMessages = true)
+    public void pooledProtoTopic(ProtoMsg protoMsg) {
+        Assertions.assertEquals(PulsarJavaSpringBootStarterApplicationTests.VALIDATION_STRING, protoMsg.getData());
+        pooledProtoTopicReceivedCount.incrementAndGet();
+    }
 }
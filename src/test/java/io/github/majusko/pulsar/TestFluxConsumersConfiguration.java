@@ -43,6 +43,9 @@ public class TestFluxConsumersConfiguration {
                 .setMessageClass(MyMsg.class)
                 .setBackPressureBufferSize(1024)
                 .setSimple(false)
+                .setMaxPendingChunkedMessage(5)
+                .setAutoAckOldestChunkedMessageOnQueueFull(true)
+                .setExpireTimeOfIncompleteChunkedMessageMs(30000)
                 .setInitialPosition(SubscriptionInitialPosition.Latest)
                 .build());
     }
@@ -6,9 +6,13 @@ import io.github.majusko.pulsar.msg.MyMsg;
 import io.github.majusko.pulsar.msg.MyMsg2;
 import io.github.majusko.pulsar.msg.ProtoMsg;
 import io.github.majusko.pulsar.producer.ProducerFactory;
+import io.github.majusko.pulsar.producer.ProducerOptions;
+import org.apache.pulsar.client.api.CompressionType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.ByteBuffer;
+
 @Configuration
 public class TestProducerConfiguration {
 
@@ -32,6 +36,37 @@ public class TestProducerConfiguration {
             .addProducer(TestConsumers.SHARED_SUB_TEST, MyMsg.class)
             .addProducer(TestConsumers.EXCLUSIVE_SUB_TEST, MyMsg.class)
             .addProducer(TestConsumers.CUSTOM_CONSUMER_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.BATCH_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.ASYNC_HANDLER_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.ASYNC_IN_FLIGHT_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.MONO_HANDLER_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.CONCURRENT_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.EXECUTOR_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.VIRTUAL_THREADS_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.CUMULATIVE_ACK_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.MULTIPLE_CONSUMERS_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.ADAPTIVE_PREFETCH_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.FLOW_CONTROL_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.NEGATIVE_ACK_BACKOFF_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.RETRY_LETTER_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.MULTI_TOPIC_FIRST, MyMsg.class)
+            .addProducer(TestConsumers.MULTI_TOPIC_SECOND, MyMsg.class)
+            .addProducer(TestConsumers.TOPICS_PATTERN_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.DEDUPLICATION_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.PERSISTENT_DEDUPLICATION_TOPIC, MyMsg.class)
+            .addProducer(TestConsumers.CHUNKING_TOPIC, byte[].class, Serialization.BYTE,
+                ProducerOptions.builder().enableChunking(true).build())
+            .addProducer(TestConsumers.FAST_JSON_TOPIC, MyMsg.class, Serialization.FAST_JSON)
+            .addProducer(TestConsumers.BYTE_BUFFER_TOPIC, ByteBuffer.class, Serialization.BYTE)
+            .addProducer(TestConsumers.PROTO_NATIVE_TOPIC, ProtoMsg.class, Serialization.PROTOBUF_NATIVE)
+            .addProducer(TestConsumers.POOLED_PROTO_TOPIC, ProtoMsg.class, Serialization.PROTOBUF)
+            .addProducer(TestConsumers.TUNED_PRODUCER_TOPIC, MyMsg.class, ProducerOptions.builder()
+                .compressionType(CompressionType.ZSTD)
+                .batchingMaxPublishDelayMs(10)
+                .batchingMaxMessages(500)
+                .maxPendingMessages(2000)
+                .blockIfQueueFull(true)
+                .build())
             .addProducer(TestFluxConsumersConfiguration.BASIC_FLUX_TOPIC_TEST, MyMsg.class)
             .addProducer(TestFluxConsumersConfiguration.ROBUST_FLUX_TOPIC_TEST, MyMsg.class);
     }
@@ -0,0 +1,80 @@
+package io.github.majusko.pulsar.benchmark;
+
+import io.github.majusko.pulsar.collector.HandlerInvoker;
+import io.github.majusko.pulsar.collector.HandlerInvokers;
+import io.github.majusko.pulsar.msg.MyMsg;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of calling a `@PulsarConsumer` handler: the former reflective path
+ * (`setAccessible` + {@link Method#invoke} on every message) against the generated {@link HandlerInvoker}s.
+ *
+ * Not part of the test suite, run the {@link #main(String[])} method on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerInvokerBenchmark {
+
+    private final MyMsg message = new MyMsg("benchmark");
+
+    private Handler bean;
+    private Method publicMethod;
+    private Method privateMethod;
+    private HandlerInvoker lambdaInvoker;
+    private HandlerInvoker methodHandleInvoker;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        bean = new Handler();
+        publicMethod = Handler.class.getMethod("consume", MyMsg.class);
+        privateMethod = Handler.class.getDeclaredMethod("consumePrivate", MyMsg.class);
+        lambdaInvoker = HandlerInvokers.of(publicMethod);
+        methodHandleInvoker = HandlerInvokers.of(privateMethod);
+    }
+
+    @Benchmark
+    public void reflection(Blackhole blackhole) throws Exception {
+        publicMethod.setAccessible(true);
+        publicMethod.invoke(bean, message);
+        blackhole.consume(bean.counter);
+    }
+
+    @Benchmark
+    public void lambdaMetafactory(Blackhole blackhole) throws Exception {
+        lambdaInvoker.invoke(bean, message);
+        blackhole.consume(bean.counter);
+    }
+
+    @Benchmark
+    public void methodHandle(Blackhole blackhole) throws Exception {
+        methodHandleInvoker.invoke(bean, message);
+        blackhole.consume(bean.counter);
+    }
+
+    public static class Handler {
+        long counter;
+
+        public void consume(MyMsg msg) {
+            counter += msg.getData().length();
+        }
+
+        private void consumePrivate(MyMsg msg) {
+            counter += msg.getData().length();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HandlerInvokerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
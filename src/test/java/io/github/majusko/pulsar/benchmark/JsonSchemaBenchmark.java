@@ -0,0 +1,177 @@
+package io.github.majusko.pulsar.benchmark;
+
+import io.github.majusko.pulsar.schema.FastJsonSchema;
+import org.apache.pulsar.client.api.Schema;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of encoding and decoding an event of about 10 KB with Pulsar's {@link Schema#JSON(Class)}
+ * (`Serialization.JSON`) against the prebuilt readers and writers of {@link FastJsonSchema} (`Serialization.FAST_JSON`).
+ *
+ * Not part of the test suite, run the {@link #main(String[])} method on the test classpath. Add
+ * `jackson-module-blackbird` or `jackson-module-afterburner` to the classpath to measure the accelerated mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSchemaBenchmark {
+
+    private Schema<Event> pulsarSchema;
+    private Schema<Event> fastSchema;
+    private Event event;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        pulsarSchema = Schema.JSON(Event.class);
+        fastSchema = FastJsonSchema.of(Event.class);
+        event = Event.sample();
+        payload = pulsarSchema.encode(event);
+    }
+
+    @Benchmark
+    public byte[] pulsarEncode() {
+        return pulsarSchema.encode(event);
+    }
+
+    @Benchmark
+    public byte[] fastEncode() {
+        return fastSchema.encode(event);
+    }
+
+    @Benchmark
+    public Event pulsarDecode() {
+        return pulsarSchema.decode(payload);
+    }
+
+    @Benchmark
+    public Event fastDecode() {
+        return fastSchema.decode(payload);
+    }
+
+    public static class Event {
+        private String id;
+        private String type;
+        private long timestamp;
+        private Map<String, String> attributes;
+        private List<Item> items;
+
+        static Event sample() {
+            final Event event = new Event();
+            event.setId("0b4f7c6e-2a51-4c8e-9d1b-7f3e2a9c5d10");
+            event.setType("order-created");
+            event.setTimestamp(1_700_000_000_000L);
+            event.setAttributes(new HashMap<>());
+            event.setItems(new ArrayList<>());
+
+            for (int i = 0; i < 20; i++) {
+                event.getAttributes().put("attribute-" + i, "value-" + i);
+            }
+            for (int i = 0; i < 80; i++) {
+                final Item item = new Item();
+                item.setSku("SKU-" + i);
+                item.setName("Item number " + i);
+                item.setQuantity(i % 5 + 1);
+                item.setPrice(i * 1.25);
+                event.getItems().add(item);
+            }
+
+            return event;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        public void setAttributes(Map<String, String> attributes) {
+            this.attributes = attributes;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+    }
+
+    public static class Item {
+        private String sku;
+        private String name;
+        private int quantity;
+        private double price;
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonSchemaBenchmark.class.getSimpleName()).build()).run();
+    }
+}
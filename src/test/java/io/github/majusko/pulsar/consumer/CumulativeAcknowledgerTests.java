@@ -0,0 +1,128 @@
+package io.github.majusko.pulsar.consumer;
+
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.MessageId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CumulativeAcknowledgerTests {
+
+    private static final String TOPIC = "persistent://public/default/cumulative";
+    private static final long FALLBACK_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private Consumer<?> consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = mock(Consumer.class);
+        doReturn(CompletableFuture.completedFuture(null)).when(consumer).acknowledgeCumulativeAsync(any(MessageId.class));
+    }
+
+    @Test
+    void testAcknowledgesCumulativelyEveryBatch() {
+        final CumulativeAcknowledger acknowledger = new CumulativeAcknowledger(3, 0, FALLBACK_MS, null);
+        final Message<?> first = message();
+        final Message<?> second = message();
+        final Message<?> third = message();
+
+        acknowledger.acknowledge(consumer, first);
+        acknowledger.acknowledge(consumer, second);
+
+        verify(consumer, never()).acknowledgeCumulativeAsync(any(MessageId.class));
+
+        acknowledger.acknowledge(consumer, third);
+
+        verify(consumer).acknowledgeCumulativeAsync(third.getMessageId());
+        verify(consumer, never()).acknowledgeAsync(any(Message.class));
+    }
+
+    @Test
+    void testFailureFallsBackToIndividualAcknowledgmentsUntilRedelivered() {
+        final CumulativeAcknowledger acknowledger = new CumulativeAcknowledger(2, 0, FALLBACK_MS, null);
+        final Message<?> handled = message();
+        final Message<?> failed = message();
+        final Message<?> later = message();
+        final Message<?> afterRedelivery = message();
+
+        acknowledger.acknowledge(consumer, handled);
+        acknowledger.negativeAcknowledge(consumer, failed);
+
+        verify(consumer).acknowledgeCumulativeAsync(handled.getMessageId());
+        verify(consumer).negativeAcknowledge(failed);
+
+        acknowledger.acknowledge(consumer, later);
+        acknowledger.acknowledge(consumer, failed);
+
+        verify(consumer).acknowledgeAsync(later);
+        verify(consumer).acknowledgeAsync(failed);
+
+        acknowledger.acknowledge(consumer, afterRedelivery);
+        acknowledger.flush();
+
+        verify(consumer, never()).acknowledgeAsync(afterRedelivery);
+        verify(consumer).acknowledgeCumulativeAsync(afterRedelivery.getMessageId());
+    }
+
+    @Test
+    void testFallbackEndsWhenFailedMessageNeverComesBack() throws InterruptedException {
+        final CumulativeAcknowledger acknowledger = new CumulativeAcknowledger(10, 0, 50, null);
+        final Message<?> failed = message();
+        final Message<?> early = message();
+        final Message<?> late = message();
+
+        acknowledger.negativeAcknowledge(consumer, failed);
+        acknowledger.acknowledge(consumer, early);
+
+        verify(consumer).acknowledgeAsync(early);
+
+        Thread.sleep(100);
+
+        acknowledger.acknowledge(consumer, late);
+        acknowledger.flush();
+
+        verify(consumer, never()).acknowledgeAsync(late);
+        verify(consumer).acknowledgeCumulativeAsync(late.getMessageId());
+    }
+
+    @Test
+    void testClosedAcknowledgerAcknowledgesIndividually() {
+        final CumulativeAcknowledger acknowledger = new CumulativeAcknowledger(10, 0, FALLBACK_MS, null);
+        final Message<?> beforeClose = message();
+        final Message<?> handled = message();
+        final Message<?> failed = message();
+
+        acknowledger.acknowledge(consumer, beforeClose);
+        acknowledger.close();
+
+        verify(consumer).acknowledgeCumulativeAsync(beforeClose.getMessageId());
+
+        acknowledger.acknowledge(consumer, handled);
+        acknowledger.negativeAcknowledge(consumer, failed);
+        acknowledger.flush();
+
+        verify(consumer).acknowledgeAsync(handled);
+        verify(consumer).negativeAcknowledge(failed);
+        verify(consumer, never()).acknowledgeCumulativeAsync(handled.getMessageId());
+    }
+
+    private static Message<?> message() {
+        final Message<?> message = mock(Message.class);
+        final MessageId messageId = mock(MessageId.class);
+
+        when(message.getTopicName()).thenReturn(TOPIC);
+        when(message.getMessageId()).thenReturn(messageId);
+
+        return message;
+    }
+}
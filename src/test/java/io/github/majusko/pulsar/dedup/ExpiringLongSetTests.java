@@ -0,0 +1,145 @@
+package io.github.majusko.pulsar.dedup;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ExpiringLongSetTests {
+
+    private static final long TTL_MS = 1000;
+
+    @Test
+    void testValueExpiresAfterTtl() {
+        final ExpiringLongSet set = new ExpiringLongSet(8, TTL_MS);
+
+        set.add(42, 0);
+
+        Assertions.assertTrue(set.contains(42, TTL_MS - 1));
+        Assertions.assertFalse(set.contains(42, TTL_MS));
+        Assertions.assertFalse(set.contains(43, 0));
+    }
+
+    @Test
+    void testAddingAgainRefreshesExpiry() {
+        final ExpiringLongSet set = new ExpiringLongSet(8, TTL_MS);
+
+        set.add(42, 0);
+        set.add(42, 500);
+
+        Assertions.assertEquals(1, set.size());
+        Assertions.assertTrue(set.contains(42, TTL_MS + 499));
+        Assertions.assertFalse(set.contains(42, TTL_MS + 500));
+    }
+
+    @Test
+    void testZeroIsStoredAsOne() {
+        final ExpiringLongSet set = new ExpiringLongSet(8, TTL_MS);
+
+        set.add(0, 0);
+
+        Assertions.assertTrue(set.contains(0, 0));
+        Assertions.assertTrue(set.contains(1, 0));
+
+        set.add(1, 500);
+
+        Assertions.assertEquals(1, set.size());
+        Assertions.assertTrue(set.contains(0, TTL_MS + 499));
+    }
+
+    @Test
+    void testProbingWrapsAroundTheTable() {
+        // 4 entries get a table of 8 slots, so 7, 15 and 23 all hash to the last slot.
+        final ExpiringLongSet set = new ExpiringLongSet(4, TTL_MS);
+
+        set.add(7, 0);
+        set.add(15, 0);
+        set.add(23, 0);
+
+        Assertions.assertEquals(3, set.size());
+        Assertions.assertTrue(set.contains(7, 0));
+        Assertions.assertTrue(set.contains(15, 0));
+        Assertions.assertTrue(set.contains(23, 0));
+        Assertions.assertFalse(set.contains(31, 0));
+    }
+
+    @Test
+    void testFullTableDropsExpiredValuesFirst() {
+        final ExpiringLongSet set = new ExpiringLongSet(4, TTL_MS);
+
+        set.add(1, 0);
+        set.add(2, 0);
+        set.add(3, 600);
+        set.add(4, 600);
+        set.add(5, TTL_MS + 100);
+
+        Assertions.assertEquals(3, set.size());
+        Assertions.assertFalse(set.contains(1, TTL_MS + 100));
+        Assertions.assertFalse(set.contains(2, TTL_MS + 100));
+        Assertions.assertTrue(set.contains(3, TTL_MS + 100));
+        Assertions.assertTrue(set.contains(4, TTL_MS + 100));
+        Assertions.assertTrue(set.contains(5, TTL_MS + 100));
+    }
+
+    @Test
+    void testFullTableDropsOldestQuarterOfLiveValues() {
+        final ExpiringLongSet set = new ExpiringLongSet(8, TTL_MS);
+
+        for (int i = 1; i <= 8; i++) {
+            set.add(i, (i - 1) * 100);
+        }
+
+        // Nothing expired yet, the values expiring within the next quarter of the window (added at 0) are dropped.
+        set.add(9, 800);
+
+        Assertions.assertEquals(8, set.size());
+        Assertions.assertFalse(set.contains(1, 800));
+
+        for (int i = 2; i <= 9; i++) {
+            Assertions.assertTrue(set.contains(i, 800), "value " + i);
+        }
+    }
+
+    @Test
+    void testFullTableAddedAtOnceStartsOver() {
+        final ExpiringLongSet set = new ExpiringLongSet(4, TTL_MS);
+
+        for (int i = 1; i <= 4; i++) {
+            set.add(i, 0);
+        }
+
+        set.add(5, 0);
+
+        Assertions.assertEquals(1, set.size());
+        Assertions.assertTrue(set.contains(5, 0));
+
+        for (int i = 1; i <= 4; i++) {
+            Assertions.assertFalse(set.contains(i, 0), "value " + i);
+        }
+    }
+
+    @Test
+    void testAddAfterRebuild() {
+        final ExpiringLongSet set = new ExpiringLongSet(4, TTL_MS);
+
+        set.add(7, 0);
+        set.add(15, 600);
+        set.add(23, 600);
+        set.add(31, 600);
+        set.add(39, TTL_MS + 100);
+
+        // 7 expired and was dropped by the rebuild, the values colliding with it survived.
+        Assertions.assertEquals(4, set.size());
+        Assertions.assertFalse(set.contains(7, TTL_MS + 100));
+        Assertions.assertTrue(set.contains(31, TTL_MS + 100));
+
+        // Refreshing 15 keeps it when the next rebuild drops the values expiring in the first half of the window.
+        set.add(15, TTL_MS + 200);
+        set.add(7, TTL_MS + 200);
+
+        Assertions.assertEquals(3, set.size());
+        Assertions.assertTrue(set.contains(7, TTL_MS + 200));
+        Assertions.assertTrue(set.contains(15, TTL_MS + 200));
+        Assertions.assertTrue(set.contains(39, TTL_MS + 200));
+        Assertions.assertFalse(set.contains(23, TTL_MS + 200));
+        Assertions.assertFalse(set.contains(31, TTL_MS + 200));
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.majusko.pulsar.dedup;
+
+import io.github.majusko.pulsar.error.exception.ClientInitException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+class MappedIdempotencyStoreTests {
+
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testHashesSurviveReopening() throws IOException {
+        final Path file = directory.resolve("reopened.dedup");
+
+        try (MappedIdempotencyStore store = new MappedIdempotencyStore(file, 100, TTL_MS)) {
+            for (long hash = 1; hash <= 50; hash++) {
+                store.add(hash * 31);
+            }
+        }
+
+        try (MappedIdempotencyStore store = new MappedIdempotencyStore(file, 100, TTL_MS)) {
+            Assertions.assertEquals(50, store.size());
+
+            for (long hash = 1; hash <= 50; hash++) {
+                Assertions.assertTrue(store.contains(hash * 31), "hash " + hash * 31);
+            }
+            Assertions.assertFalse(store.contains(51 * 31));
+        }
+    }
+
+    @Test
+    void testDifferentLayoutIsReset() throws IOException {
+        final Path file = directory.resolve("resized.dedup");
+
+        try (MappedIdempotencyStore store = new MappedIdempotencyStore(file, 100, TTL_MS)) {
+            store.add(42);
+        }
+
+        try (MappedIdempotencyStore store = new MappedIdempotencyStore(file, 10_000, TTL_MS)) {
+            Assertions.assertEquals(0, store.size());
+            Assertions.assertFalse(store.contains(42));
+
+            store.add(43);
+        }
+
+        try (MappedIdempotencyStore store = new MappedIdempotencyStore(file, 10_000, TTL_MS)) {
+            Assertions.assertTrue(store.contains(43));
+        }
+    }
+
+    @Test
+    void testForeignFileIsReset() throws IOException {
+        final Path file = directory.resolve("foreign.dedup");
+        final byte[] garbage = new byte[4096];
+
+        Arrays.fill(garbage, (byte) 7);
+        Files.write(file, garbage);
+
+        try (MappedIdempotencyStore store = new MappedIdempotencyStore(file, 100, TTL_MS)) {
+            Assertions.assertEquals(0, store.size());
+            Assertions.assertFalse(store.contains(0x0707070707070707L));
+        }
+    }
+
+    @Test
+    void testStoreIsLockedWhileOpen() throws IOException {
+        final Path file = directory.resolve("locked.dedup");
+
+        try (MappedIdempotencyStore ignored = new MappedIdempotencyStore(file, 100, TTL_MS)) {
+            Assertions.assertThrows(ClientInitException.class, () -> new MappedIdempotencyStore(file, 100, TTL_MS));
+        }
+
+        new MappedIdempotencyStore(file, 100, TTL_MS).close();
+    }
+
+    @Test
+    void testStoreOverTwoGigabytesIsRejected() {
+        final Path file = directory.resolve("huge.dedup");
+
+        Assertions.assertThrows(ClientInitException.class, () -> new MappedIdempotencyStore(file, Integer.MAX_VALUE, TTL_MS));
+        Assertions.assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,223 @@
+package io.github.majusko.pulsar.error;
+
+import io.github.majusko.pulsar.constant.ErrorOverflowPolicy;
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.MessageId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ErrorPipelineTests {
+
+    private static final int CAPACITY = 2;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<FailedMessage> delivered = new CopyOnWriteArrayList<>();
+    private final List<FailedMessage> spilled = new CopyOnWriteArrayList<>();
+    private ErrorPipeline pipeline;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        release.countDown();
+        pipeline.close(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testDropOldestKeepsNewestFailures() {
+        pipeline = new ErrorPipeline(CAPACITY, ErrorOverflowPolicy.DROP_OLDEST, spilled::add, Thread::new);
+        blockSubscriber();
+
+        emit(3);
+
+        Assertions.assertEquals(1, pipeline.getDroppedCount());
+        Assertions.assertEquals(0, pipeline.getSpilledCount());
+
+        release.countDown();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> delivered.size() == 3);
+        Assertions.assertEquals(Arrays.asList("0", "2", "3"), getMessageIds(delivered));
+    }
+
+    @Test
+    void testSpillWritesFailuresToSinkWhenFull() {
+        pipeline = new ErrorPipeline(CAPACITY, ErrorOverflowPolicy.SPILL, spilled::add, Thread::new);
+        blockSubscriber();
+
+        emit(3);
+
+        Assertions.assertEquals(0, pipeline.getDroppedCount());
+        Assertions.assertEquals(1, pipeline.getSpilledCount());
+        Assertions.assertEquals(Collections.singletonList("3"), getMessageIds(spilled));
+
+        release.countDown();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> delivered.size() == 3);
+        Assertions.assertEquals(Arrays.asList("0", "1", "2"), getMessageIds(delivered));
+    }
+
+    @Test
+    void testSpillFallsBackToLogWhenSinkFails() {
+        pipeline = new ErrorPipeline(CAPACITY, ErrorOverflowPolicy.SPILL, failedMessage -> {
+            throw new IOException("Disk full");
+        }, Thread::new);
+        blockSubscriber();
+
+        emit(3);
+
+        Assertions.assertEquals(0, pipeline.getSpilledCount());
+        Assertions.assertEquals(1, pipeline.getLoggedCount());
+    }
+
+    @Test
+    void testLogWritesFailuresToLogWhenFull() {
+        pipeline = new ErrorPipeline(CAPACITY, ErrorOverflowPolicy.LOG, spilled::add, Thread::new);
+        blockSubscriber();
+
+        emit(3);
+
+        Assertions.assertEquals(0, pipeline.getDroppedCount());
+        Assertions.assertEquals(0, pipeline.getSpilledCount());
+        Assertions.assertEquals(1, pipeline.getLoggedCount());
+        Assertions.assertTrue(spilled.isEmpty());
+    }
+
+    @Test
+    void testBlockWaitsForFreeSpace() throws InterruptedException {
+        pipeline = new ErrorPipeline(CAPACITY, ErrorOverflowPolicy.BLOCK, spilled::add, Thread::new);
+        blockSubscriber();
+
+        emit(2);
+
+        final Thread emitter = new Thread(() -> pipeline.emit(failedMessage(3)));
+        emitter.start();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> emitter.getState() == Thread.State.TIMED_WAITING);
+        Assertions.assertTrue(emitter.isAlive());
+
+        release.countDown();
+        emitter.join(TimeUnit.SECONDS.toMillis(5));
+
+        Assertions.assertFalse(emitter.isAlive());
+        await().atMost(Duration.ofSeconds(5)).until(() -> delivered.size() == 4);
+        Assertions.assertEquals(Arrays.asList("0", "1", "2", "3"), getMessageIds(delivered));
+        Assertions.assertEquals(0, pipeline.getDroppedCount());
+        Assertions.assertEquals(0, pipeline.getSpilledCount());
+    }
+
+    @Test
+    void testOverflowWithoutSubscribersFollowsPolicy() throws InterruptedException {
+        for (ErrorOverflowPolicy policy : Arrays.asList(ErrorOverflowPolicy.DROP_OLDEST, ErrorOverflowPolicy.SPILL, ErrorOverflowPolicy.LOG)) {
+            pipeline = new ErrorPipeline(CAPACITY, policy, spilled::add, Thread::new);
+            delivered.clear();
+            spilled.clear();
+
+            for (int i = 0; i < 5; i++) {
+                pipeline.emit(failedMessage(i));
+            }
+
+            Assertions.assertEquals(policy == ErrorOverflowPolicy.DROP_OLDEST ? 3 : 0, pipeline.getDroppedCount(), policy.name());
+            Assertions.assertEquals(policy == ErrorOverflowPolicy.SPILL ? 3 : 0, pipeline.getSpilledCount(), policy.name());
+            Assertions.assertEquals(policy == ErrorOverflowPolicy.LOG ? 3 : 0, pipeline.getLoggedCount(), policy.name());
+            Assertions.assertEquals(CAPACITY, pipeline.getQueued(), policy.name());
+
+            pipeline.subscribe(delivered::add);
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> delivered.size() == CAPACITY);
+            Assertions.assertEquals(policy == ErrorOverflowPolicy.DROP_OLDEST ? Arrays.asList("3", "4") : Arrays.asList("0", "1"),
+                getMessageIds(delivered), policy.name());
+            pipeline.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testBlockWithoutSubscribersWaitsForSubscriber() throws InterruptedException {
+        pipeline = new ErrorPipeline(CAPACITY, ErrorOverflowPolicy.BLOCK, spilled::add, Thread::new);
+
+        emit(2);
+
+        final Thread emitter = new Thread(() -> pipeline.emit(failedMessage(3)));
+        emitter.start();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> emitter.getState() == Thread.State.TIMED_WAITING);
+
+        pipeline.subscribe(delivered::add);
+        emitter.join(TimeUnit.SECONDS.toMillis(5));
+
+        Assertions.assertFalse(emitter.isAlive());
+        await().atMost(Duration.ofSeconds(5)).until(() -> delivered.size() == 3);
+        Assertions.assertEquals(Arrays.asList("1", "2", "3"), getMessageIds(delivered));
+        Assertions.assertTrue(spilled.isEmpty());
+    }
+
+    @Test
+    void testUndeliveredFailuresSpilledOnClose() throws InterruptedException {
+        pipeline = new ErrorPipeline(CAPACITY, ErrorOverflowPolicy.SPILL, spilled::add, Thread::new);
+
+        emit(2);
+        pipeline.close(1, TimeUnit.SECONDS);
+        pipeline.emit(failedMessage(3));
+
+        Assertions.assertEquals(Arrays.asList("1", "2", "3"), getMessageIds(spilled));
+        Assertions.assertEquals(3, pipeline.getSpilledCount());
+        Assertions.assertEquals(0, pipeline.getDroppedCount());
+    }
+
+    /**
+     * Subscribes a subscriber stuck on the first failure until released, so the following failures fill the queue.
+     */
+    private void blockSubscriber() {
+        final CountDownLatch started = new CountDownLatch(1);
+
+        pipeline.subscribe(failedMessage -> {
+            delivered.add(failedMessage);
+            started.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        pipeline.emit(failedMessage(0));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.getCount() == 0);
+    }
+
+    private void emit(int count) {
+        for (int i = 1; i <= count; i++) {
+            pipeline.emit(failedMessage(i));
+        }
+    }
+
+    private static List<String> getMessageIds(List<FailedMessage> failedMessages) {
+        return failedMessages.stream().map(failedMessage -> failedMessage.getMessage().getMessageId().toString())
+            .collect(Collectors.toList());
+    }
+
+    private static FailedMessage failedMessage(int id) {
+        final Consumer<?> consumer = mock(Consumer.class);
+        final Message<?> message = mock(Message.class);
+        final MessageId messageId = mock(MessageId.class);
+
+        when(consumer.getConsumerName()).thenReturn("error-pipeline-consumer");
+        when(messageId.toString()).thenReturn(String.valueOf(id));
+        when(message.getMessageId()).thenReturn(messageId);
+
+        return new FailedMessage(new IllegalStateException("Failure " + id), consumer, message);
+    }
+}
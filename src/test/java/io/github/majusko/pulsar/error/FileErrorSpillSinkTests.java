@@ -0,0 +1,90 @@
+package io.github.majusko.pulsar.error;
+
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.MessageId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileErrorSpillSinkTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFileCreatedWithFirstFailure() throws IOException {
+        final FileErrorSpillSink sink = new FileErrorSpillSink(directory.resolve("spill"));
+
+        Assertions.assertFalse(Files.exists(sink.getFile()));
+
+        sink.spill(failedMessage("key", "payload"));
+        sink.close();
+
+        Assertions.assertTrue(Files.exists(sink.getFile()));
+    }
+
+    @Test
+    void testFailuresAppendedOnePerLine() throws IOException {
+        final FileErrorSpillSink sink = new FileErrorSpillSink(directory);
+
+        sink.spill(failedMessage("key", "first"));
+        sink.spill(failedMessage(null, "second"));
+        sink.close();
+
+        final List<String> lines = Files.readAllLines(sink.getFile(), StandardCharsets.UTF_8);
+
+        Assertions.assertEquals(2, lines.size());
+
+        final String[] first = lines.get(0).split("\t", -1);
+        final String[] second = lines.get(1).split("\t", -1);
+
+        Assertions.assertEquals(7, first.length);
+        Assertions.assertEquals("spill-consumer", first[1]);
+        Assertions.assertEquals("persistent://public/default/spill", first[2]);
+        Assertions.assertEquals("1:2:3", first[3]);
+        Assertions.assertEquals("key", first[4]);
+        Assertions.assertEquals("java.lang.IllegalStateException: Failed on line", first[5]);
+        Assertions.assertEquals("first", new String(Base64.getDecoder().decode(first[6]), StandardCharsets.UTF_8));
+        Assertions.assertEquals("", second[4]);
+        Assertions.assertEquals("second", new String(Base64.getDecoder().decode(second[6]), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testReopenedSinkAppends() throws IOException {
+        final FileErrorSpillSink sink = new FileErrorSpillSink(directory);
+
+        sink.spill(failedMessage("key", "first"));
+        sink.close();
+        sink.spill(failedMessage("key", "second"));
+        sink.close();
+
+        Assertions.assertEquals(2, Files.readAllLines(new FileErrorSpillSink(directory).getFile()).size());
+    }
+
+    private static FailedMessage failedMessage(String key, String payload) {
+        final Consumer<?> consumer = mock(Consumer.class);
+        final Message<?> message = mock(Message.class);
+        final MessageId messageId = mock(MessageId.class);
+
+        when(consumer.getConsumerName()).thenReturn("spill-consumer");
+        when(messageId.toString()).thenReturn("1:2:3");
+        when(message.getMessageId()).thenReturn(messageId);
+        when(message.getTopicName()).thenReturn("persistent://public/default/spill");
+        when(message.hasKey()).thenReturn(key != null);
+        when(message.getKey()).thenReturn(key);
+        when(message.getData()).thenReturn(payload.getBytes(StandardCharsets.UTF_8));
+
+        return new FailedMessage(new IllegalStateException("Failed\non line"), consumer, message);
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.majusko.pulsar.reactor;
+
+import io.github.majusko.pulsar.PulsarClientContainer;
+import io.github.majusko.pulsar.constant.SubscribeFailurePolicy;
+import io.github.majusko.pulsar.msg.MyMsg;
+import io.github.majusko.pulsar.properties.PulsarProperties;
+import io.github.majusko.pulsar.utils.UrlBuildService;
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.ConsumerBuilder;
+import org.apache.pulsar.client.api.ConsumerInterceptor;
+import org.apache.pulsar.client.api.PulsarClient;
+import org.apache.pulsar.client.api.PulsarClientException;
+import org.apache.pulsar.client.api.Schema;
+import org.apache.pulsar.client.api.SubscriptionType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FluxConsumerFactoryTests {
+
+    private static final String CONSUMER_NAME = "same-name";
+
+    private PulsarClient client;
+    private FluxConsumerFactory factory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        final PulsarClientContainer clientContainer = mock(PulsarClientContainer.class);
+        final UrlBuildService urlBuildService = mock(UrlBuildService.class);
+
+        client = mock(PulsarClient.class);
+        when(clientContainer.getClient(anyString())).thenReturn(client);
+        when(clientContainer.getProperties(anyString())).thenReturn(mock(PulsarProperties.class));
+        when(urlBuildService.getSubscriptionType(any(SubscriptionType.class))).thenReturn(SubscriptionType.Exclusive);
+        when(urlBuildService.getSubscriptionType((SubscriptionType) null)).thenReturn(SubscriptionType.Exclusive);
+        when(urlBuildService.buildTopicUrl(anyString(), any())).thenReturn("persistent://public/default/flux");
+
+        factory = new FluxConsumerFactory(clientContainer, urlBuildService, mock(ConsumerInterceptor.class));
+        ReflectionTestUtils.setField(factory, "subscribeTimeoutMs", 100L);
+        ReflectionTestUtils.setField(factory, "subscribeFailurePolicy", SubscribeFailurePolicy.FAIL_FAST);
+        factory.initSubscriber();
+    }
+
+    @Test
+    void testTimedOutSubscriptionClosesOnlyItsOwnConsumer() throws Exception {
+        final Consumer<?> healthy = mock(Consumer.class);
+        final Consumer<?> late = mock(Consumer.class);
+        final CompletableFuture<Consumer<?>> lateSubscription = new CompletableFuture<>();
+
+        when(healthy.getConsumerName()).thenReturn(CONSUMER_NAME);
+        when(late.getConsumerName()).thenReturn(CONSUMER_NAME);
+        doReturn(builder(CompletableFuture.completedFuture(healthy)), builder(lateSubscription))
+            .when(client).newConsumer(any(Schema.class));
+
+        factory.newConsumer(fluxConsumer());
+
+        Assertions.assertThrows(PulsarClientException.TimeoutException.class, () -> factory.newConsumer(fluxConsumer()));
+
+        lateSubscription.complete(late);
+
+        verify(late).closeAsync();
+        verify(healthy, never()).closeAsync();
+        Assertions.assertEquals(Collections.singletonList(healthy), factory.getConsumers());
+    }
+
+    private static ConsumerBuilder<?> builder(CompletableFuture<? extends Consumer<?>> subscription) {
+        final ConsumerBuilder<?> builder = mock(ConsumerBuilder.class, RETURNS_SELF);
+
+        doReturn(subscription).when(builder).subscribeAsync();
+
+        return builder;
+    }
+
+    private static PulsarFluxConsumer<MyMsg> fluxConsumer() throws Exception {
+        return PulsarFluxConsumer.builder()
+            .setTopic("flux")
+            .setConsumerName(CONSUMER_NAME)
+            .setSubscriptionName("flux-subscription")
+            .setMessageClass(MyMsg.class)
+            .build();
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.majusko.pulsar.schema;
+
+import io.github.majusko.pulsar.msg.ProtoMsg;
+import org.apache.pulsar.client.api.Schema;
+import org.apache.pulsar.client.api.SchemaSerializationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+class FastProtobufSchemaTests {
+
+    private static final ProtoMsg MESSAGE = ProtoMsg.newBuilder().setData("validation-string").build();
+
+    private final FastProtobufSchema<ProtoMsg> schema = FastProtobufSchema.of(ProtoMsg.class);
+
+    @Test
+    void testDecodeHeapBuffer() {
+        final ByteBuffer buffer = ByteBuffer.wrap(schema.encode(MESSAGE));
+
+        Assertions.assertEquals(MESSAGE, schema.decode(buffer, null));
+        Assertions.assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void testDecodeDirectBuffer() {
+        final byte[] bytes = schema.encode(MESSAGE);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+
+        buffer.put(bytes).flip();
+
+        Assertions.assertEquals(MESSAGE, schema.decode(buffer, null));
+        Assertions.assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void testDecodeFromPosition() {
+        final byte[] bytes = schema.encode(MESSAGE);
+
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(bytes.length + 10),
+            ByteBuffer.allocateDirect(bytes.length + 10)}) {
+            buffer.put(new byte[7]).put(bytes).put(new byte[3]);
+            buffer.position(7).limit(7 + bytes.length);
+
+            Assertions.assertEquals(MESSAGE, schema.decode(buffer, null), buffer.isDirect() ? "direct" : "heap");
+            Assertions.assertEquals(7, buffer.position());
+        }
+    }
+
+    @Test
+    void testDecodeReadOnlyBuffer() {
+        final ByteBuffer buffer = ByteBuffer.wrap(schema.encode(MESSAGE)).asReadOnlyBuffer();
+
+        Assertions.assertEquals(MESSAGE, schema.decode(buffer, null));
+    }
+
+    @Test
+    void testDecodeInvalidBuffer() {
+        final ByteBuffer buffer = ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+
+        Assertions.assertThrows(SchemaSerializationException.class, () -> schema.decode(buffer, null));
+    }
+
+    @Test
+    void testCompatibleWithPulsarSchema() {
+        final Schema<ProtoMsg> pulsarSchema = Schema.PROTOBUF(ProtoMsg.class);
+
+        Assertions.assertEquals(pulsarSchema.getSchemaInfo(), schema.getSchemaInfo());
+        Assertions.assertEquals(MESSAGE, schema.decode(ByteBuffer.wrap(pulsarSchema.encode(MESSAGE)), null));
+        Assertions.assertEquals(MESSAGE, pulsarSchema.decode(schema.encode(MESSAGE)));
+    }
+}